@@ -0,0 +1,80 @@
+package com.davidebove.bitstring.benchmark;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.Random;
+
+/**
+ * Generates the input data shared by all benchmarks.
+ *
+ * @author Dbof
+ */
+final class BenchmarkData {
+	/** The seed, so every run sees the same data. */
+	private static final long SEED = 0x5EEDL;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Creates random data of the given density.
+	 *
+	 * @param size
+	 *            the size in bytes
+	 * @param density
+	 *            "dense" for uniformly random bits, "sparse" for about one set
+	 *            bit in 1024
+	 * @return the data
+	 */
+	static byte[] create(final int size, final String density) {
+		Random random = new Random(SEED);
+		byte[] data = new byte[size];
+		if ("dense".equals(density)) {
+			random.nextBytes(data);
+		} else if ("sparse".equals(density)) {
+			for (int i = 0; i < size / 128; i++)
+				data[random.nextInt(size)] |= 1 << random.nextInt(8);
+		} else {
+			throw new IllegalArgumentException("Unknown density: " + density);
+		}
+		return data;
+	}
+
+	/**
+	 * Creates random indices below a bound.
+	 *
+	 * @param count
+	 *            the number of indices
+	 * @param bound
+	 *            the exclusive upper bound
+	 * @return the indices
+	 */
+	static int[] indices(final int count, final int bound) {
+		Random random = new Random(SEED);
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++)
+			result[i] = random.nextInt(bound);
+		return result;
+	}
+}
@@ -0,0 +1,161 @@
+package com.davidebove.bitstring.benchmark;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.davidebove.bitstring.BitStream;
+
+/**
+ * Benchmarks for the read methods of {@link BitStream}. Every invocation
+ * reads a batch of values; when the stream runs out, it is rewound to the
+ * start offset, which is 0 for aligned and 3 for unaligned reads.
+ *
+ * @author Dbof
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class BitStreamBenchmark {
+	/** The number of values read per invocation. */
+	private static final int BATCH = 64;
+
+	/** The size of the data in bytes (1 KB, 1 MB, 128 MB). */
+	@Param({ "1024", "1048576", "134217728" })
+	public int size;
+
+	/** Whether the reads start at a byte boundary. */
+	@Param({ "true", "false" })
+	public boolean aligned;
+
+	private BitStream stream;
+
+	private byte[] buffer;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		stream = new BitStream(BenchmarkData.create(size, "dense"));
+		stream.position(start());
+		buffer = new byte[BATCH];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void readBoolean(final Blackhole bh) throws IOException {
+		rewind(BATCH);
+		for (int i = 0; i < BATCH; i++)
+			bh.consume(stream.readBoolean());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void read(final Blackhole bh) throws IOException {
+		rewind(BATCH * 8L);
+		for (int i = 0; i < BATCH; i++)
+			bh.consume(stream.read());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void readShort(final Blackhole bh) throws IOException {
+		rewind(BATCH * 16L);
+		for (int i = 0; i < BATCH; i++)
+			bh.consume(stream.readShort());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void readInteger(final Blackhole bh) throws IOException {
+		rewind(BATCH * 32L);
+		for (int i = 0; i < BATCH; i++)
+			bh.consume(stream.readInteger());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void readIntegerBits(final Blackhole bh) throws IOException {
+		rewind(BATCH * 13L);
+		for (int i = 0; i < BATCH; i++)
+			bh.consume(stream.readInteger(13));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void readLong(final Blackhole bh) throws IOException {
+		rewind(BATCH * 64L);
+		for (int i = 0; i < BATCH; i++)
+			bh.consume(stream.readLong());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void peekBits(final Blackhole bh) throws IOException {
+		rewind(BATCH + 24);
+		for (int i = 0; i < BATCH; i++) {
+			bh.consume(stream.peekBits(24));
+			stream.skip(1);
+		}
+	}
+
+	@Benchmark
+	public byte[] readBytes() throws IOException {
+		rewind(BATCH * 8L);
+		stream.readBytes(buffer, 0, BATCH);
+		return buffer;
+	}
+
+	/**
+	 * Rewinds the stream if fewer than the given bits are left.
+	 *
+	 * @param bits
+	 *            the number of bits needed
+	 */
+	private void rewind(final long bits) {
+		if (stream.remaining() < bits)
+			stream.position(start());
+	}
+
+	private int start() {
+		return aligned ? 0 : 3;
+	}
+}
@@ -0,0 +1,133 @@
+package com.davidebove.bitstring.benchmark;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidebove.bitstring.BitString;
+
+/**
+ * Benchmarks for the construction, conversion, search and single bit access
+ * of {@link BitString}.
+ *
+ * @author Dbof
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class BitStringBenchmark {
+	/** The number of random bit accesses per invocation. */
+	private static final int ACCESSES = 1024;
+
+	/** A pattern that does not occur in sparse data. */
+	private static final String PATTERN = "10110111011110111110111111011111";
+
+	/** The size of the data in bytes (1 KB, 1 MB, 128 MB). */
+	@Param({ "1024", "1048576", "134217728" })
+	public int size;
+
+	/** The bit density of the data. */
+	@Param({ "dense", "sparse" })
+	public String density;
+
+	private byte[] data;
+
+	private byte[] fragment;
+
+	private BitString bits;
+
+	private int[] indices;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		data = BenchmarkData.create(size, density);
+		fragment = BenchmarkData.create(64, density);
+		bits = new BitString(data);
+		indices = BenchmarkData.indices(ACCESSES, bits.length());
+	}
+
+	@Benchmark
+	public BitString construct() {
+		return new BitString(data);
+	}
+
+	@Benchmark
+	public byte[] toByteArray() {
+		return bits.toByteArray();
+	}
+
+	@Benchmark
+	public BitString append() {
+		BitString result = new BitString(fragment);
+		result.append(data);
+		return result;
+	}
+
+	@Benchmark
+	public int find() {
+		return bits.find(PATTERN);
+	}
+
+	@Benchmark
+	public List<Integer> findAll() {
+		return bits.findAll("1111");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ACCESSES)
+	public int bitSet() {
+		int count = 0;
+		for (int index : indices) {
+			if (bits.bitSet(index))
+				count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ACCESSES)
+	public BitString setBit() {
+		for (int index : indices)
+			bits.setBit(index, (index & 1) == 0);
+		return bits;
+	}
+}
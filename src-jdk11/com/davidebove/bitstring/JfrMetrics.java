@@ -0,0 +1,126 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * A {@link CountingMetrics} listener that also publishes its counters to Java
+ * Flight Recorder. While a recording is running, a
+ * {@code com.davidebove.bitstring.Metrics} event with the counters of the last
+ * period is emitted once per second.
+ * <p>
+ * Metrics.setListener(new JfrMetrics());
+ * <p>
+ * This class needs Java 11 or later and lives in src-jdk11, which the Ant
+ * build only compiles when it runs on such a JDK.
+ *
+ * @author Dbof
+ */
+public class JfrMetrics extends CountingMetrics implements AutoCloseable {
+	/** The hook that emits the periodic event. */
+	private final Runnable hook = this::emit;
+
+	/** The counter values at the last event. */
+	private long lastRead, lastWritten, lastSearches, lastScanned,
+			lastGrowths, lastConversions;
+
+	/**
+	 * Instantiates a new listener and registers the periodic event.
+	 */
+	public JfrMetrics() {
+		FlightRecorder.addPeriodicEvent(MetricsEvent.class, hook);
+	}
+
+	/**
+	 * Unregisters the periodic event.
+	 */
+	@Override
+	public void close() {
+		FlightRecorder.removePeriodicEvent(hook);
+	}
+
+	/**
+	 * Emits the counters of the last period.
+	 */
+	private synchronized void emit() {
+		MetricsEvent event = new MetricsEvent();
+		long read = getBitsRead(), written = getBitsWritten();
+		long searches = getSearches(), scanned = getBitsScanned();
+		long growths = getBufferGrowths(), conversions = getConversions();
+		event.bitsRead = read - lastRead;
+		event.bitsWritten = written - lastWritten;
+		event.searches = searches - lastSearches;
+		event.bitsScanned = scanned - lastScanned;
+		event.bufferGrowths = growths - lastGrowths;
+		event.conversions = conversions - lastConversions;
+		event.commit();
+		lastRead = read;
+		lastWritten = written;
+		lastSearches = searches;
+		lastScanned = scanned;
+		lastGrowths = growths;
+		lastConversions = conversions;
+	}
+
+	/**
+	 * The periodic JFR event.
+	 */
+	@Name("com.davidebove.bitstring.Metrics")
+	@Label("BitString Metrics")
+	@Category("BitString")
+	@Description("Bits read, written and scanned during the last period")
+	@Period("1 s")
+	@StackTrace(false)
+	static class MetricsEvent extends Event {
+		@Label("Bits Read")
+		@DataAmount(DataAmount.BITS)
+		long bitsRead;
+
+		@Label("Bits Written")
+		@DataAmount(DataAmount.BITS)
+		long bitsWritten;
+
+		@Label("Searches")
+		long searches;
+
+		@Label("Bits Scanned")
+		@DataAmount(DataAmount.BITS)
+		long bitsScanned;
+
+		@Label("Buffer Growths")
+		long bufferGrowths;
+
+		@Label("Conversions")
+		long conversions;
+	}
+}
@@ -0,0 +1,293 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * A BitCodec decodes a {@link BitLayout} into objects of a class and encodes
+ * them back. Every field of the layout is stored in the field of the same
+ * name, which may be private and of type boolean, byte, short, char, int or
+ * long; wider values are truncated.
+ * <p>
+ * Reflection is only used once, when the codec is created: it resolves the
+ * fields to method handles that are adapted to a common (Object, long) shape,
+ * so decoding and encoding are plain method handle invocations.
+ *
+ * @author Dbof
+ * @param <T>
+ *            the type of the decoded objects
+ */
+public final class BitCodec<T> {
+	/** The generic type of a setter. */
+	private static final MethodType SETTER = MethodType.methodType(
+			void.class, Object.class, long.class);
+
+	/** The generic type of a getter. */
+	private static final MethodType GETTER = MethodType.methodType(
+			long.class, Object.class);
+
+	/** The handle of {@link #nonZero(long)}. */
+	private static final MethodHandle LONG_NON_ZERO;
+
+	/** The handle of {@link #toLong(boolean)}. */
+	private static final MethodHandle BOOLEAN_TO_LONG;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			LONG_NON_ZERO = lookup.findStatic(BitCodec.class, "nonZero",
+					MethodType.methodType(boolean.class, long.class));
+			BOOLEAN_TO_LONG = lookup.findStatic(BitCodec.class, "toLong",
+					MethodType.methodType(long.class, boolean.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** The layout. */
+	private final BitLayout layout;
+
+	/** The class of the decoded objects. */
+	private final Class<T> type;
+
+	/** The no-argument constructor, or null. */
+	private final MethodHandle constructor;
+
+	/** The setter of every field. */
+	private final MethodHandle[] setters;
+
+	/** The getter of every field. */
+	private final MethodHandle[] getters;
+
+	/**
+	 * Instantiates a new codec.
+	 *
+	 * @param layout
+	 *            the layout
+	 * @param type
+	 *            the class
+	 */
+	BitCodec(final BitLayout layout, final Class<T> type) {
+		this.layout = layout;
+		this.type = type;
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		setters = new MethodHandle[layout.fieldCount()];
+		getters = new MethodHandle[layout.fieldCount()];
+		try {
+			for (int i = 0; i < setters.length; i++) {
+				Field field = findField(type, layout.name(i));
+				field.setAccessible(true);
+				setters[i] = adaptSetter(lookup.unreflectSetter(field));
+				getters[i] = adaptGetter(lookup.unreflectGetter(field));
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(e);
+		}
+		MethodHandle ctor = null;
+		try {
+			Constructor<T> c = type.getDeclaredConstructor();
+			c.setAccessible(true);
+			ctor = lookup.unreflectConstructor(c).asType(
+					MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			// objects can still be decoded into existing instances
+		}
+		constructor = ctor;
+	}
+
+	/**
+	 * Returns the layout of this codec.
+	 *
+	 * @return the layout
+	 */
+	public BitLayout layout() {
+		return layout;
+	}
+
+	/**
+	 * Decodes a new object from the current position of a stream.
+	 *
+	 * @param in
+	 *            the stream
+	 * @return the object
+	 * @throws IOException
+	 *             if fewer than {@link BitLayout#length()} bits are left
+	 * @throws UnsupportedOperationException
+	 *             if the class has no constructor without arguments
+	 */
+	public T decode(final BitStream in) throws IOException {
+		if (constructor == null)
+			throw new UnsupportedOperationException(type.getName()
+					+ " has no constructor without arguments!");
+		T target;
+		try {
+			target = type.cast((Object) constructor.invokeExact());
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+		decode(in, target);
+		return target;
+	}
+
+	/**
+	 * Decodes the fields at the current position of a stream into an
+	 * existing object, and advances the stream by {@link BitLayout#length()}
+	 * bits.
+	 *
+	 * @param in
+	 *            the stream
+	 * @param target
+	 *            the object
+	 * @throws IOException
+	 *             if fewer than {@link BitLayout#length()} bits are left
+	 */
+	public void decode(final BitStream in, final T target) throws IOException {
+		layout.check(in);
+		boolean lsb = in.bitOrder() == BitOrder.LSB_FIRST;
+		int field = 0;
+		try {
+			for (int l = 0; l < layout.lanes.length; l++) {
+				long lane = layout.readLane(in, l);
+				for (; field < setters.length && layout.laneOf[field] == l; field++)
+					setters[field].invokeExact((Object) target,
+							layout.extract(lane, field, lsb));
+			}
+		} catch (RuntimeException | Error | IOException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+		in.advance(layout.tail);
+	}
+
+	/**
+	 * Encodes the fields of an object. Values are truncated to the width of
+	 * their field; skipped bits are written as zeros.
+	 *
+	 * @param value
+	 *            the object
+	 * @param out
+	 *            the bit writer
+	 */
+	public void encode(final T value, final BitWriter out) {
+		boolean lsb = out.bitOrder() == BitOrder.LSB_FIRST;
+		int field = 0;
+		try {
+			for (int l = 0; l < layout.lanes.length; l++) {
+				long lane = 0;
+				for (; field < getters.length && layout.laneOf[field] == l; field++)
+					lane |= layout.insert(
+							(long) getters[field].invokeExact((Object) value),
+							field, lsb);
+				layout.writeLane(out, l, lane);
+			}
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+		BitLayout.zeros(out, layout.tail);
+	}
+
+	/**
+	 * Finds a non-static field of a class or its superclasses, which must not
+	 * be final.
+	 */
+	private static Field findField(final Class<?> type, final String name) {
+		for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+			try {
+				Field field = c.getDeclaredField(name);
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+				if (Modifier.isFinal(field.getModifiers()))
+					throw new IllegalArgumentException("Field " + name
+							+ " in " + c.getName() + " is final");
+				return field;
+			} catch (NoSuchFieldException e) {
+				// try the superclass
+			}
+		}
+		throw new IllegalArgumentException("No field " + name + " in "
+				+ type.getName());
+	}
+
+	/**
+	 * Adapts a field setter to the type (Object, long)void.
+	 */
+	private static MethodHandle adaptSetter(final MethodHandle setter) {
+		Class<?> fieldType = setter.type().parameterType(1);
+		MethodHandle result;
+		if (fieldType == boolean.class) {
+			result = MethodHandles.filterArguments(setter, 1, LONG_NON_ZERO);
+		} else if (fieldType == long.class || fieldType == int.class
+				|| fieldType == short.class || fieldType == char.class
+				|| fieldType == byte.class) {
+			// narrowing primitive conversion, like a cast
+			result = MethodHandles.explicitCastArguments(setter,
+					setter.type().changeParameterType(1, long.class));
+		} else {
+			throw new IllegalArgumentException("Unsupported field type: "
+					+ fieldType);
+		}
+		return result.asType(SETTER);
+	}
+
+	/**
+	 * Adapts a field getter to the type (Object)long.
+	 */
+	private static MethodHandle adaptGetter(final MethodHandle getter) {
+		Class<?> fieldType = getter.type().returnType();
+		MethodHandle result;
+		if (fieldType == boolean.class)
+			result = MethodHandles.filterReturnValue(getter, BOOLEAN_TO_LONG);
+		else
+			// widening primitive conversion; char is zero-extended
+			result = MethodHandles.explicitCastArguments(getter,
+					getter.type().changeReturnType(long.class));
+		return result.asType(GETTER);
+	}
+
+	/**
+	 * Converts a value to a boolean.
+	 */
+	private static boolean nonZero(final long value) {
+		return value != 0;
+	}
+
+	/**
+	 * Converts a boolean to a value.
+	 */
+	private static long toLong(final boolean value) {
+		return value ? 1 : 0;
+	}
+}
@@ -0,0 +1,469 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A BitLayout describes a fixed sequence of bit fields, such as a protocol
+ * header of "3-bit version, 1-bit flag, 12-bit length", and decodes and
+ * encodes it without hand-written read calls.
+ * <p>
+ * When the layout is built, adjacent fields are grouped into lanes of at most
+ * 64 bits. Decoding then reads every lane with a single access to the packed
+ * words and extracts every field from its lane with one shift and one mask.
+ * Fields appear in stream order. The bits of a field are assembled in the bit
+ * order of the stream or writer, exactly like {@link BitStream#readInteger(int)}
+ * and {@link BitWriter#write(long, int)}: with {@link BitOrder#MSB_FIRST} the
+ * first bit is the most significant bit of the value, with
+ * {@link BitOrder#LSB_FIRST} the least significant.
+ * <p>
+ * Example:
+ * <p>
+ * BitLayout header = BitLayout.builder().field("version", 3).flag("flag")
+ * .field("length", 12).skip(16).build();<br>
+ * long[] values = header.decode(stream);
+ * <p>
+ * A layout can be bound to a class with fields of the same names, see
+ * {@link #bind(Class)}.
+ *
+ * @author Dbof
+ */
+public final class BitLayout {
+	/** The names of the fields. */
+	final String[] names;
+
+	/** The widths of the fields in bits. */
+	final int[] widths;
+
+	/** True for fields that are sign-extended. */
+	final boolean[] signed;
+
+	/** The offsets of the fields in bits. */
+	private final int[] offsets;
+
+	/** The total length in bits, including skipped bits. */
+	private final int length;
+
+	/** The number of bits skipped before every lane. */
+	final int[] gaps;
+
+	/** The number of bits of every lane. */
+	final int[] lanes;
+
+	/** The number of bits skipped after the last lane. */
+	final int tail;
+
+	/** The lane of every field. */
+	final int[] laneOf;
+
+	/** The right shift of every field within its lane, read MSB_FIRST. */
+	private final int[] shifts;
+
+	/** The right shift of every field within its lane, read LSB_FIRST. */
+	private final int[] lsbShifts;
+
+	/**
+	 * Instantiates a new layout and plans its lanes.
+	 */
+	private BitLayout(final List<String> names, final List<Integer> widths,
+			final List<Boolean> signed, final List<Integer> offsets,
+			final int length) {
+		int count = names.size();
+		this.names = names.toArray(new String[count]);
+		this.widths = new int[count];
+		this.signed = new boolean[count];
+		this.offsets = new int[count];
+		for (int i = 0; i < count; i++) {
+			this.widths[i] = widths.get(i);
+			this.signed[i] = signed.get(i);
+			this.offsets[i] = offsets.get(i);
+		}
+		this.length = length;
+
+		// group the fields into lanes of at most 64 bits
+		laneOf = new int[count];
+		shifts = new int[count];
+		lsbShifts = new int[count];
+		int[] laneStart = new int[count];
+		int[] laneEnd = new int[count];
+		int lane = -1;
+		for (int i = 0; i < count; i++) {
+			int end = this.offsets[i] + this.widths[i];
+			if (lane < 0 || end - laneStart[lane] > 64) {
+				lane++;
+				laneStart[lane] = this.offsets[i];
+			}
+			laneEnd[lane] = end;
+			laneOf[i] = lane;
+		}
+		gaps = new int[lane + 1];
+		lanes = new int[lane + 1];
+		int position = 0;
+		for (int l = 0; l <= lane; l++) {
+			gaps[l] = laneStart[l] - position;
+			lanes[l] = laneEnd[l] - laneStart[l];
+			position = laneEnd[l];
+		}
+		tail = length - position;
+		for (int i = 0; i < count; i++) {
+			shifts[i] = laneEnd[laneOf[i]] - (this.offsets[i] + this.widths[i]);
+			lsbShifts[i] = this.offsets[i] - laneStart[laneOf[i]];
+		}
+	}
+
+	/**
+	 * Returns a new builder.
+	 *
+	 * @return the builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the total length in bits, including skipped bits.
+	 *
+	 * @return the length
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Returns the number of fields.
+	 *
+	 * @return the field count
+	 */
+	public int fieldCount() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the index of a field.
+	 *
+	 * @param name
+	 *            the name of the field
+	 * @return the index, or -1 if there is no such field
+	 */
+	public int indexOf(final String name) {
+		return Arrays.asList(names).indexOf(name);
+	}
+
+	/**
+	 * Returns the name of a field.
+	 *
+	 * @param field
+	 *            the index of the field
+	 * @return the name
+	 */
+	public String name(final int field) {
+		return names[field];
+	}
+
+	/**
+	 * Returns the width of a field.
+	 *
+	 * @param field
+	 *            the index of the field
+	 * @return the width in bits
+	 */
+	public int width(final int field) {
+		return widths[field];
+	}
+
+	/**
+	 * Returns the offset of a field from the start of the layout.
+	 *
+	 * @param field
+	 *            the index of the field
+	 * @return the offset in bits
+	 */
+	public int offset(final int field) {
+		return offsets[field];
+	}
+
+	/**
+	 * Decodes the fields at the current position of a stream into a new
+	 * array, in the order they were declared.
+	 *
+	 * @param in
+	 *            the stream
+	 * @return the values
+	 * @throws IOException
+	 *             if fewer than {@link #length()} bits are left
+	 */
+	public long[] decode(final BitStream in) throws IOException {
+		long[] values = new long[names.length];
+		decode(in, values);
+		return values;
+	}
+
+	/**
+	 * Decodes the fields at the current position of a stream into an array,
+	 * in the order they were declared, and advances the stream by
+	 * {@link #length()} bits.
+	 *
+	 * @param in
+	 *            the stream
+	 * @param values
+	 *            the array for the values
+	 * @throws IOException
+	 *             if fewer than {@link #length()} bits are left
+	 */
+	public void decode(final BitStream in, final long[] values)
+			throws IOException {
+		check(in);
+		boolean lsb = in.bitOrder() == BitOrder.LSB_FIRST;
+		int field = 0;
+		for (int l = 0; l < lanes.length; l++) {
+			long lane = readLane(in, l);
+			for (; field < names.length && laneOf[field] == l; field++)
+				values[field] = extract(lane, field, lsb);
+		}
+		in.advance(tail);
+	}
+
+	/**
+	 * Encodes the fields from an array, in the order they were declared.
+	 * Values are truncated to the width of their field; skipped bits are
+	 * written as zeros.
+	 *
+	 * @param values
+	 *            the values
+	 * @param out
+	 *            the bit writer
+	 */
+	public void encode(final long[] values, final BitWriter out) {
+		if (values.length < names.length)
+			throw new IllegalArgumentException("Expected " + names.length
+					+ " values!");
+		boolean lsb = out.bitOrder() == BitOrder.LSB_FIRST;
+		int field = 0;
+		for (int l = 0; l < lanes.length; l++) {
+			long lane = 0;
+			for (; field < names.length && laneOf[field] == l; field++)
+				lane |= insert(values[field], field, lsb);
+			writeLane(out, l, lane);
+		}
+		zeros(out, tail);
+	}
+
+	/**
+	 * Binds this layout to a class, see {@link BitCodec}.
+	 *
+	 * @param <T>
+	 *            the type of the class
+	 * @param type
+	 *            the class, with a field of the same name for every field of
+	 *            this layout
+	 * @return the codec
+	 * @throws IllegalArgumentException
+	 *             if a field is missing or has an unsupported type
+	 */
+	public <T> BitCodec<T> bind(final Class<T> type) {
+		return new BitCodec<>(this, type);
+	}
+
+	/**
+	 * Checks that a stream holds the whole layout.
+	 */
+	void check(final BitStream in) throws EOFException {
+		if (in.remaining() < length)
+			throw new EOFException();
+	}
+
+	/**
+	 * Skips the gap before a lane and reads the lane in the bit order of the
+	 * stream. The caller must have checked the length.
+	 */
+	long readLane(final BitStream in, final int l) throws IOException {
+		in.advance(gaps[l]);
+		long lane = in.peekBits(lanes[l]);
+		in.advance(lanes[l]);
+		return lane;
+	}
+
+	/**
+	 * Extracts a field from its lane with one shift and one mask.
+	 */
+	long extract(final long lane, final int field, final boolean lsb) {
+		int width = widths[field];
+		int shift = lsb ? lsbShifts[field] : shifts[field];
+		if (signed[field])
+			return (lane << (64 - shift - width)) >> (64 - width);
+		return (lane >>> shift) & mask(width);
+	}
+
+	/**
+	 * Moves a value to the position of its field within its lane.
+	 */
+	long insert(final long value, final int field, final boolean lsb) {
+		int shift = lsb ? lsbShifts[field] : shifts[field];
+		return (value & mask(widths[field])) << shift;
+	}
+
+	/**
+	 * Writes the gap before a lane and the lane, which was assembled in the
+	 * bit order of the writer.
+	 */
+	void writeLane(final BitWriter out, final int l, final long lane) {
+		zeros(out, gaps[l]);
+		out.write(lane, lanes[l]);
+	}
+
+	/**
+	 * Writes count zero bits.
+	 */
+	static void zeros(final BitWriter out, final int count) {
+		for (int i = 0; i < count; i += 64)
+			out.write(0, Math.min(64, count - i));
+	}
+
+	/**
+	 * Returns a mask of the lowest bits.
+	 */
+	private static long mask(final int width) {
+		return (width == 64) ? -1L : (1L << width) - 1;
+	}
+
+	/**
+	 * A builder of bit layouts. Fields are added in stream order.
+	 */
+	public static final class Builder {
+		/** The names of the fields. */
+		private final List<String> names = new ArrayList<>();
+
+		/** The widths of the fields. */
+		private final List<Integer> widths = new ArrayList<>();
+
+		/** True for signed fields. */
+		private final List<Boolean> signed = new ArrayList<>();
+
+		/** The offsets of the fields. */
+		private final List<Integer> offsets = new ArrayList<>();
+
+		/** The length so far. */
+		private int length = 0;
+
+		/**
+		 * Instantiates a new builder.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Adds an unsigned field.
+		 *
+		 * @param name
+		 *            the name of the field
+		 * @param bits
+		 *            the width (1 to 64)
+		 * @return this builder
+		 */
+		public Builder field(final String name, final int bits) {
+			return add(name, bits, false);
+		}
+
+		/**
+		 * Adds a signed field in two's complement, which is sign-extended when
+		 * decoded.
+		 *
+		 * @param name
+		 *            the name of the field
+		 * @param bits
+		 *            the width (1 to 64)
+		 * @return this builder
+		 */
+		public Builder signedField(final String name, final int bits) {
+			return add(name, bits, true);
+		}
+
+		/**
+		 * Adds a single-bit field.
+		 *
+		 * @param name
+		 *            the name of the field
+		 * @return this builder
+		 */
+		public Builder flag(final String name) {
+			return add(name, 1, false);
+		}
+
+		/**
+		 * Adds unused bits, for example reserved bits or padding.
+		 *
+		 * @param bits
+		 *            the number of bits
+		 * @return this builder
+		 */
+		public Builder skip(final int bits) {
+			if (bits < 0)
+				throw new IllegalArgumentException("Skip must not be negative!");
+			grow(bits);
+			return this;
+		}
+
+		/**
+		 * Builds the layout.
+		 *
+		 * @return the layout
+		 */
+		public BitLayout build() {
+			return new BitLayout(names, widths, signed, offsets, length);
+		}
+
+		/**
+		 * Adds a field.
+		 */
+		private Builder add(final String name, final int bits,
+				final boolean isSigned) {
+			if (name == null)
+				throw new NullPointerException();
+			if (bits < 1 || bits > 64)
+				throw new IllegalArgumentException("Field width must be between 1 and 64!");
+			if (names.contains(name))
+				throw new IllegalArgumentException("Duplicate field: " + name);
+			names.add(name);
+			widths.add(bits);
+			signed.add(isSigned);
+			offsets.add(length);
+			grow(bits);
+			return this;
+		}
+
+		/**
+		 * Extends the length.
+		 */
+		private void grow(final int bits) {
+			if ((long) length + bits > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Layout too large!");
+			length += bits;
+		}
+	}
+}
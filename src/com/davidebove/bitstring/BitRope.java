@@ -0,0 +1,470 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A BitRope assembles a large bit string from fragments without copying them.
+ * The fragments are kept in a balanced tree, so appending and taking a
+ * substring take O(log n) time regardless of the length. The bits are only
+ * copied when the rope is converted to a {@link BitString} or a byte array,
+ * or written to a stream.
+ * <p>
+ * A rope refers to the fragments it was built from: a bit string must not be
+ * modified after it has been appended. Unlike {@link BitString#substring(int,
+ * int)}, the length of a rope is not padded to whole bytes.
+ *
+ * @author Dbof
+ */
+public class BitRope {
+	/** The size of the buffer used for writing to a stream in bytes. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** The root of the tree, or null if the rope is empty. */
+	private Node root;
+
+	/**
+	 * Instantiates a new, empty rope.
+	 */
+	public BitRope() {
+		root = null;
+	}
+
+	/**
+	 * Instantiates a new rope with a single fragment.
+	 *
+	 * @param data
+	 *            the fragment
+	 */
+	public BitRope(final BitString data) {
+		append(data);
+	}
+
+	/**
+	 * Instantiates a new rope over a tree.
+	 *
+	 * @param root
+	 *            the root, or null
+	 */
+	private BitRope(final Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Appends a bit string without copying it.
+	 *
+	 * @param data
+	 *            the fragment
+	 */
+	public void append(final BitString data) {
+		if (data.length() > 0)
+			root = join(root, new Leaf(data, 0, data.length()));
+	}
+
+	/**
+	 * Appends all bits of another rope. The ropes share their fragments.
+	 *
+	 * @param data
+	 *            the rope
+	 */
+	public void append(final BitRope data) {
+		root = join(root, data.root);
+	}
+
+	/**
+	 * Returns the number of bits.
+	 *
+	 * @return the length
+	 */
+	public long length() {
+		return (root == null) ? 0 : root.length;
+	}
+
+	/**
+	 * Returns the state of the bit at the specified index.
+	 *
+	 * @param index
+	 *            the index
+	 * @return true for 1 and false for 0
+	 */
+	public boolean bitSet(final long index) {
+		if (index < 0 || index >= length())
+			throw new IndexOutOfBoundsException();
+		Node node = root;
+		long i = index;
+		while (node instanceof Concat) {
+			Concat concat = (Concat) node;
+			if (i < concat.left.length) {
+				node = concat.left;
+			} else {
+				i -= concat.left.length;
+				node = concat.right;
+			}
+		}
+		Leaf leaf = (Leaf) node;
+		return leaf.data.getBits(leaf.begin + (int) i, 1) != 0;
+	}
+
+	/**
+	 * Returns a rope of the bits from beginIndex to endIndex - 1. The new rope
+	 * shares the fragments of this one.
+	 *
+	 * @param beginIndex
+	 *            the beginning index, inclusive
+	 * @param endIndex
+	 *            the ending index, exclusive
+	 * @return the substring
+	 */
+	public BitRope substring(final long beginIndex, final long endIndex) {
+		if (beginIndex < 0 || endIndex > length() || beginIndex > endIndex)
+			throw new IndexOutOfBoundsException();
+		if (beginIndex == endIndex)
+			return new BitRope();
+		return new BitRope(slice(root, beginIndex, endIndex));
+	}
+
+	/**
+	 * Returns a rope of the bits from beginIndex to the end.
+	 *
+	 * @param beginIndex
+	 *            the beginning index, inclusive
+	 * @return the substring
+	 */
+	public BitRope substring(final long beginIndex) {
+		return substring(beginIndex, length());
+	}
+
+	/**
+	 * Copies all bits into a new bit string.
+	 *
+	 * @return the bit string
+	 */
+	public BitString toBitString() {
+		BitString result = new BitString();
+		result.ensureCapacity(length());
+		for (Leaf leaf : leaves()) {
+			int end = leaf.begin + (int) leaf.length;
+			for (int i = leaf.begin; i < end; i += 64) {
+				int n = Math.min(64, end - i);
+				result.appendBits(leaf.data.getBits(i, n), n);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Copies all bits into a byte array. The last byte is padded with zeros
+	 * if the length is not a multiple of 8.
+	 *
+	 * @return the byte array
+	 */
+	public byte[] toByteArray() {
+		long bytes = (length() + 7) >>> 3;
+		if (bytes > Integer.MAX_VALUE - 8)
+			throw new OutOfMemoryError("Bit rope too large!");
+		Packer packer = new Packer(new byte[(int) bytes], null);
+		try {
+			pack(packer);
+		} catch (IOException e) {
+			// only the output stream throws
+			throw new AssertionError(e);
+		}
+		return packer.buffer;
+	}
+
+	/**
+	 * Writes all bits to an output stream, fragment by fragment, without
+	 * building the whole byte array. The last byte is padded with zeros if the
+	 * length is not a multiple of 8.
+	 *
+	 * @param out
+	 *            the output stream
+	 * @throws IOException
+	 *             if the stream throws
+	 */
+	public void writeTo(final OutputStream out) throws IOException {
+		Packer packer = new Packer(new byte[BUFFER_SIZE], out);
+		pack(packer);
+		packer.flush();
+	}
+
+	/**
+	 * Writes all bits to a bit writer, in the bit order of the writer.
+	 *
+	 * @param out
+	 *            the bit writer
+	 */
+	public void writeTo(final BitWriter out) {
+		for (Leaf leaf : leaves())
+			out.write(leaf.data, leaf.begin, leaf.begin + (int) leaf.length);
+	}
+
+	/**
+	 * Returns the height of the tree, for tests.
+	 *
+	 * @return the height, 0 for an empty rope
+	 */
+	int height() {
+		return (root == null) ? 0 : root.height;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return toBitString().toString();
+	}
+
+	/**
+	 * Packs all bits into the packer, the last byte padded with zeros.
+	 */
+	private void pack(final Packer packer) throws IOException {
+		for (Leaf leaf : leaves()) {
+			int end = leaf.begin + (int) leaf.length;
+			for (int i = leaf.begin; i < end; i += 64) {
+				int n = Math.min(64, end - i);
+				packer.put(leaf.data.getBits(i, n), n);
+			}
+		}
+		if (packer.bits > 0)
+			packer.put(0, 8 - packer.bits);
+	}
+
+	/**
+	 * Returns the leaves in order.
+	 */
+	private Iterable<Leaf> leaves() {
+		return () -> new Iterator<Leaf>() {
+			private final ArrayDeque<Node> stack = new ArrayDeque<>();
+			{
+				if (root != null)
+					stack.push(root);
+			}
+
+			@Override
+			public boolean hasNext() {
+				return !stack.isEmpty();
+			}
+
+			@Override
+			public Leaf next() {
+				Node node = stack.pop();
+				while (node instanceof Concat) {
+					stack.push(((Concat) node).right);
+					node = ((Concat) node).left;
+				}
+				return (Leaf) node;
+			}
+		};
+	}
+
+	/**
+	 * Returns the bits from begin to end - 1 of a tree, sharing its leaves.
+	 */
+	private static Node slice(final Node node, final long begin, final long end) {
+		if (begin == 0 && end == node.length)
+			return node;
+		if (node instanceof Leaf) {
+			Leaf leaf = (Leaf) node;
+			return new Leaf(leaf.data, leaf.begin + (int) begin, end - begin);
+		}
+		Concat concat = (Concat) node;
+		long middle = concat.left.length;
+		if (end <= middle)
+			return slice(concat.left, begin, end);
+		if (begin >= middle)
+			return slice(concat.right, begin - middle, end - middle);
+		return join(slice(concat.left, begin, middle),
+				slice(concat.right, 0, end - middle));
+	}
+
+	/**
+	 * Concatenates two balanced trees into a balanced tree, in time
+	 * proportional to the difference of their heights.
+	 */
+	private static Node join(final Node left, final Node right) {
+		if (left == null)
+			return right;
+		if (right == null)
+			return left;
+		if (left.height > right.height + 1)
+			return joinRight((Concat) left, right);
+		if (right.height > left.height + 1)
+			return joinLeft(left, (Concat) right);
+		return new Concat(left, right);
+	}
+
+	/**
+	 * Joins a smaller tree to the right spine of a higher one.
+	 */
+	private static Node joinRight(final Concat left, final Node right) {
+		Node inner = left.right;
+		Node joined = (inner.height <= right.height + 1)
+				? new Concat(inner, right)
+				: joinRight((Concat) inner, right);
+		if (joined.height <= left.left.height + 1)
+			return new Concat(left.left, joined);
+		// joined is two levels higher than left.left: rotate
+		Concat top = (Concat) joined;
+		if (top.left.height > top.right.height) {
+			Concat middle = (Concat) top.left;
+			return new Concat(new Concat(left.left, middle.left),
+					new Concat(middle.right, top.right));
+		}
+		return new Concat(new Concat(left.left, top.left), top.right);
+	}
+
+	/**
+	 * Joins a smaller tree to the left spine of a higher one.
+	 */
+	private static Node joinLeft(final Node left, final Concat right) {
+		Node inner = right.left;
+		Node joined = (inner.height <= left.height + 1)
+				? new Concat(left, inner)
+				: joinLeft(left, (Concat) inner);
+		if (joined.height <= right.right.height + 1)
+			return new Concat(joined, right.right);
+		// joined is two levels higher than right.right: rotate
+		Concat top = (Concat) joined;
+		if (top.right.height > top.left.height) {
+			Concat middle = (Concat) top.right;
+			return new Concat(new Concat(top.left, middle.left),
+					new Concat(middle.right, right.right));
+		}
+		return new Concat(top.left, new Concat(top.right, right.right));
+	}
+
+	/**
+	 * A node of the tree.
+	 */
+	private abstract static class Node {
+		/** The number of bits below this node. */
+		final long length;
+
+		/** The height of this node; leaves have height 1. */
+		final int height;
+
+		Node(final long length, final int height) {
+			this.length = length;
+			this.height = height;
+		}
+	}
+
+	/**
+	 * A range of bits of a fragment.
+	 */
+	private static final class Leaf extends Node {
+		/** The fragment. */
+		final BitString data;
+
+		/** The index of the first bit within the fragment. */
+		final int begin;
+
+		Leaf(final BitString data, final int begin, final long length) {
+			super(length, 1);
+			this.data = data;
+			this.begin = begin;
+		}
+	}
+
+	/**
+	 * The concatenation of two trees.
+	 */
+	private static final class Concat extends Node {
+		/** The first part. */
+		final Node left;
+
+		/** The second part. */
+		final Node right;
+
+		Concat(final Node left, final Node right) {
+			super(left.length + right.length,
+					Math.max(left.height, right.height) + 1);
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+	/**
+	 * Packs bit fields into a byte array and optionally drains it to a stream.
+	 */
+	private static final class Packer {
+		/** The packed bytes. */
+		final byte[] buffer;
+
+		/** The stream to drain full buffers to, or null. */
+		final OutputStream out;
+
+		/** The number of complete bytes in the buffer. */
+		int position = 0;
+
+		/** The pending bits, right-aligned. */
+		long pending = 0;
+
+		/** The number of pending bits (0 to 7). */
+		int bits = 0;
+
+		Packer(final byte[] buffer, final OutputStream out) {
+			this.buffer = buffer;
+			this.out = out;
+		}
+
+		/**
+		 * Adds the lowest count bits (at most 64) of a value.
+		 */
+		void put(final long value, final int count) throws IOException {
+			int remaining = count;
+			while (remaining > 0) {
+				// at most 7 bits are pending, so 56 more always fit
+				int n = Math.min(remaining, 56);
+				long chunk = (value >>> (remaining - n)) & ((1L << n) - 1);
+				pending = (pending << n) | chunk;
+				bits += n;
+				remaining -= n;
+				while (bits >= 8) {
+					if (position == buffer.length)
+						flush();
+					bits -= 8;
+					buffer[position++] = (byte) (pending >>> bits);
+				}
+				pending &= (1L << bits) - 1;
+			}
+		}
+
+		/**
+		 * Writes the complete bytes to the stream.
+		 */
+		void flush() throws IOException {
+			out.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+}
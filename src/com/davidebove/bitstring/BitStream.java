@@ -23,6 +23,9 @@ package com.davidebove.bitstring;
  * @author Dbof <dbof@ymail.com>
  */
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * A BitStream allows the sequential access to a bit string and offers methods
@@ -37,6 +40,22 @@ public class BitStream extends BitString {
 	/** The position. */
 	private int pos = 0;
 
+	/** The marked position. */
+	private int mark = 0;
+
+	/** The bit order. */
+	private BitOrder bitOrder = BitOrder.MSB_FIRST;
+
+	/** True, if multi-byte values are read big-endian. */
+	private boolean bigEndian = true;
+
+	/**
+	 * Instantiates a new, empty bit stream.
+	 */
+	BitStream() {
+		super();
+	}
+
 	/**
 	 * Instantiates a new bit stream.
 	 *
@@ -57,6 +76,32 @@ public class BitStream extends BitString {
 		super(data);
 	}
 
+	/**
+	 * Instantiates a new bit stream from the remaining bytes of a buffer. The
+	 * bytes are copied; the position of the buffer is not changed.
+	 *
+	 * @param data
+	 *            the buffer, heap or direct
+	 * @see #wrap(ByteBuffer)
+	 */
+	public BitStream(final ByteBuffer data) {
+		super(data);
+	}
+
+	/**
+	 * Returns a bit stream that reads the remaining bytes of a buffer in place,
+	 * without copying them. See {@link BitString#wrap(ByteBuffer)} for the
+	 * operations that copy the bits to the heap; none of the read methods of
+	 * this class do.
+	 *
+	 * @param data
+	 *            the buffer, heap or direct
+	 * @return the bit stream
+	 */
+	public static BitStream wrap(final ByteBuffer data) {
+		return new BufferBitStream(data);
+	}
+
 	/**
 	 * Instantiates a new bit stream from a string.
 	 *
@@ -82,6 +127,53 @@ public class BitStream extends BitString {
 		super(num, pad);
 	}
 
+	/**
+	 * Returns the bit order of this stream.
+	 *
+	 * @return the bit order
+	 */
+	public BitOrder bitOrder() {
+		return bitOrder;
+	}
+
+	/**
+	 * Sets the bit order of this stream. The bit order defines in which order
+	 * the bits of a byte are read and how the bits of a value are assembled.
+	 *
+	 * @param order
+	 *            the new bit order
+	 * @return this stream
+	 */
+	public BitStream bitOrder(final BitOrder order) {
+		if (order == null)
+			throw new NullPointerException();
+		bitOrder = order;
+		return this;
+	}
+
+	/**
+	 * Returns the byte order used for short, integer and long values.
+	 *
+	 * @return the byte order
+	 */
+	public ByteOrder order() {
+		return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+	}
+
+	/**
+	 * Sets the byte order used for short, integer and long values.
+	 *
+	 * @param order
+	 *            the new byte order
+	 * @return this stream
+	 */
+	public BitStream order(final ByteOrder order) {
+		if (order == null)
+			throw new NullPointerException();
+		bigEndian = order == ByteOrder.BIG_ENDIAN;
+		return this;
+	}
+
 	/**
 	 * Read a byte.
 	 *
@@ -90,10 +182,7 @@ public class BitStream extends BitString {
 	 *             if an I/O error occurs.
 	 */
 	public byte read() throws IOException {
-		if (pos + 8 > bits.length())
-			throw new IOException();
-		pos += 8;
-		return (byte) (Integer.parseInt(bits.substring(pos - 8, pos), 2) & 0xff);
+		return (byte) readBits(8);
 	}
 
 	/**
@@ -104,10 +193,7 @@ public class BitStream extends BitString {
 	 *             if an I/O error occurs.
 	 */
 	public boolean readBoolean() throws IOException {
-		if (pos + 1 > bits.length())
-			throw new IOException();
-		pos += 1;
-		return bits.charAt(pos - 1) == '1';
+		return readBits(1) != 0;
 	}
 
 	/**
@@ -120,72 +206,217 @@ public class BitStream extends BitString {
 	 *             if an I/O error occurs.
 	 */
 	public byte[] readBytes(final int count) throws IOException {
-		if (count < 0 || pos + count * 8 > bits.length())
+		if (count < 0 || pos + count * 8L > length)
 			throw new IOException();
 
 		byte[] result = new byte[count];
-		for (int i = 0; i < count; i++) {
-			result[i] = read();
-		}
+		readBytes(result, 0, count);
 		return result;
 	}
 
 	/**
-	 * Read a short value.
+	 * Read a specific byte count into an array. The bytes are copied eight at
+	 * a time, so the position does not need to be byte aligned.
+	 *
+	 * @param dest
+	 *            the destination array
+	 * @param offset
+	 *            the start offset in the destination array
+	 * @param count
+	 *            the number of bytes to read
+	 * @throws IOException
+	 *             if fewer than count bytes are left or the range is invalid.
+	 */
+	public void readBytes(final byte[] dest, final int offset, final int count)
+			throws IOException {
+		if (offset < 0 || count < 0 || offset + count > dest.length
+				|| pos + count * 8L > length)
+			throw new IOException();
+
+		int i = offset;
+		int end = offset + count;
+		for (; i + 8 <= end; i += 8) {
+			long chunk = lookahead(64);
+			// with LSB_FIRST, every byte is assembled in reverse
+			if (bitOrder == BitOrder.LSB_FIRST)
+				chunk = Long.reverseBytes(Long.reverse(chunk));
+			for (int j = 0; j < 8; j++)
+				dest[i + j] = (byte) (chunk >>> (56 - 8 * j));
+			pos += 64;
+		}
+		if (Metrics.ENABLED)
+			Metrics.bitsRead((i - offset) * 8L);
+		for (; i < end; i++)
+			dest[i] = read();
+	}
+
+	/**
+	 * Returns an {@link java.io.InputStream} and {@link java.io.DataInput}
+	 * view of this stream. The view reads whole bytes from the current
+	 * position and advances this stream; no data is copied.
+	 *
+	 * @return the input stream
+	 */
+	public BitStreamInputStream asInputStream() {
+		return new BitStreamInputStream(this);
+	}
+
+	/**
+	 * Read a short value in the byte order of this stream.
 	 *
 	 * @return the short
 	 * @throws IOException
 	 *             if an I/O error occurs.
 	 */
 	public short readShort() throws IOException {
-		if (pos + 16 > bits.length())
-			throw new IOException();
-		pos += 16;
-		return Short.parseShort(bits.substring(pos - 16, pos), 2);
+		short value = (short) readBits(16);
+		return swapBytes() ? Short.reverseBytes(value) : value;
+	}
+
+	/**
+	 * Read a little-endian short value, regardless of the byte order of this
+	 * stream.
+	 *
+	 * @return the short
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public short readShortLE() throws IOException {
+		short value = (short) readBits(16);
+		return bitOrder == BitOrder.MSB_FIRST ? Short.reverseBytes(value)
+				: value;
 	}
 
 	/**
-	 * Read an integer.
+	 * Read an integer in the byte order of this stream.
 	 *
 	 * @return the integer
 	 * @throws IOException
 	 *             if an I/O error occurs.
 	 */
 	public int readInteger() throws IOException {
-		return readInteger(32);
+		int value = readInteger(32);
+		return swapBytes() ? Integer.reverseBytes(value) : value;
+	}
+
+	/**
+	 * Read a little-endian integer, regardless of the byte order of this
+	 * stream.
+	 *
+	 * @return the integer
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public int readIntegerLE() throws IOException {
+		int value = readInteger(32);
+		return bitOrder == BitOrder.MSB_FIRST ? Integer.reverseBytes(value)
+				: value;
 	}
 
 	/**
 	 * Read an integer from a specific bit count. <br>
 	 * By default, the size of an integer is 32 bits. By specifying the count
-	 * parameter, you can read a specific bit count into an integer value.
+	 * parameter, you can read a specific bit count into an integer value. The
+	 * bits are assembled in the bit order of this stream; the byte order is
+	 * not applied.
 	 *
 	 * @param count
-	 *            the count
+	 *            the count (0 to 32)
 	 * @return the int
 	 * @throws IOException
 	 *             if an I/O error occurs.
 	 */
 	public int readInteger(int count) throws IOException {
-		if (count < 0 || pos + count > bits.length())
+		if (count > 32)
 			throw new IOException();
-		pos += count;
-		return Integer.parseInt(bits.substring(pos - count, pos), 2);
-
+		return (int) readBits(count);
 	}
 
 	/**
-	 * Read a long value.
+	 * Read a long value in the byte order of this stream.
 	 *
 	 * @return the long
 	 * @throws IOException
 	 *             if an I/O error occurs.
 	 */
 	public long readLong() throws IOException {
-		if (pos + 64 > bits.length())
-			throw new IOException();
-		pos += 64;
-		return Long.parseLong(bits.substring(pos - 64, pos), 2);
+		long value = readBits(64);
+		return swapBytes() ? Long.reverseBytes(value) : value;
+	}
+
+	/**
+	 * Read a little-endian long value, regardless of the byte order of this
+	 * stream.
+	 *
+	 * @return the long
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public long readLongLE() throws IOException {
+		long value = readBits(64);
+		return bitOrder == BitOrder.MSB_FIRST ? Long.reverseBytes(value)
+				: value;
+	}
+
+	/**
+	 * Read an unsigned short value in the byte order of this stream.
+	 *
+	 * @return the value (0 to 65535)
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public int readUnsignedShort() throws IOException {
+		return readShort() & 0xFFFF;
+	}
+
+	/**
+	 * Read an unsigned integer in the byte order of this stream.
+	 *
+	 * @return the value (0 to 2^32 - 1)
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public long readUnsignedInteger() throws IOException {
+		return readInteger() & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Read an unsigned long value in the byte order of this stream. Java has
+	 * no unsigned 64-bit type, so the value is returned as the long with the
+	 * same bits; use {@link Long#toUnsignedString(long)},
+	 * {@link Long#compareUnsigned(long, long)} and
+	 * {@link Long#divideUnsigned(long, long)} to work with it.
+	 *
+	 * @return the value
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public long readUnsignedLong() throws IOException {
+		return readLong();
+	}
+
+	/**
+	 * Read an IEEE 754 single precision value in the byte order of this
+	 * stream.
+	 *
+	 * @return the float
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public float readFloat() throws IOException {
+		return Float.intBitsToFloat(readInteger());
+	}
+
+	/**
+	 * Read an IEEE 754 double precision value in the byte order of this
+	 * stream.
+	 *
+	 * @return the double
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public double readDouble() throws IOException {
+		return Double.longBitsToDouble(readLong());
 	}
 
 	/**
@@ -200,13 +431,234 @@ public class BitStream extends BitString {
 	public long skip(long n) throws IOException {
 		if (n < 0)
 			throw new IOException();
-		long diff = bits.length() - 1 - pos;
+		long diff = length - 1 - pos;
 		if (diff < n) {
-			pos = bits.length();
+			pos = length;
 			return diff;
 		} else {
 			pos += n;
 			return n;
 		}
 	}
+
+	/**
+	 * Returns the next bits as a value without consuming them. The bits are
+	 * assembled in the bit order of this stream: with
+	 * {@link BitOrder#MSB_FIRST} the first bit becomes the most significant bit
+	 * of the result, with {@link BitOrder#LSB_FIRST} the least significant.
+	 *
+	 * @param count
+	 *            the number of bits (0 to 64)
+	 * @return the bits, right-aligned
+	 * @throws IOException
+	 *             if fewer than count bits are left or count is out of range.
+	 */
+	public long peekBits(final int count) throws IOException {
+		if (count < 0 || count > 64 || pos + count > length)
+			throw new IOException();
+		if (bitOrder == BitOrder.MSB_FIRST || count == 0)
+			return lookahead(count);
+		return Long.reverse(lookahead(count)) >>> (64 - count);
+	}
+
+	/**
+	 * Returns the current position of this stream in bits.
+	 *
+	 * @return the position
+	 */
+	public long position() {
+		return pos;
+	}
+
+	/**
+	 * Sets the position of this stream.
+	 *
+	 * @param newPosition
+	 *            the new position in bits
+	 * @throws IndexOutOfBoundsException
+	 *             if the position is negative or beyond the end of the stream
+	 */
+	public void position(final long newPosition) {
+		if (newPosition < 0 || newPosition > length)
+			throw new IndexOutOfBoundsException();
+		pos = (int) newPosition;
+	}
+
+	/**
+	 * Marks the current position. A subsequent call to {@link #reset()}
+	 * returns to this position. Initially, the mark is at the start of the
+	 * stream.
+	 */
+	public void mark() {
+		mark = pos;
+	}
+
+	/**
+	 * Returns to the last marked position.
+	 */
+	public void reset() {
+		pos = mark;
+	}
+
+	/**
+	 * Points this stream at new input, reusing its storage. The position and
+	 * the mark return to the start; bit order and byte order are kept. No
+	 * memory is allocated unless the input is larger than any input before.
+	 *
+	 * @param data
+	 *            the data
+	 * @param offset
+	 *            the index of the first byte
+	 * @param count
+	 *            the number of bytes
+	 * @throws IndexOutOfBoundsException
+	 *             if the range is not within the array
+	 */
+	public void reset(final byte[] data, final int offset, final int count) {
+		if (offset < 0 || count < 0 || offset > data.length - count)
+			throw new IndexOutOfBoundsException();
+		clear();
+		append(data, offset, count);
+	}
+
+	/**
+	 * Points this stream at the remaining bytes of a buffer, like
+	 * {@link #reset(byte[], int, int)}. The position of the buffer is not
+	 * changed.
+	 *
+	 * @param data
+	 *            the buffer, heap or direct
+	 */
+	public void reset(final ByteBuffer data) {
+		clear();
+		append(data);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#clear()
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		pos = 0;
+		mark = 0;
+	}
+
+	/**
+	 * Returns the number of bits left in the stream.
+	 *
+	 * @return the number of unread bits
+	 */
+	public long remaining() {
+		return length - pos;
+	}
+
+	/**
+	 * Skips to the next byte boundary, unless the stream is already byte
+	 * aligned. If the stream ends before the boundary, the position moves to
+	 * the end.
+	 *
+	 * @return the number of bits actually skipped
+	 */
+	public int alignToByte() {
+		int old = pos;
+		pos = Math.min(pos + ((8 - (pos & 7)) & 7), length);
+		return pos - old;
+	}
+
+	/**
+	 * Checks whether the current position is at a byte boundary.
+	 *
+	 * @return true, if the position is a multiple of 8
+	 */
+	public boolean isByteAligned() {
+		return (pos & 7) == 0;
+	}
+
+	/**
+	 * Reads the next count bits (at most 64) in the bit order of this stream.
+	 *
+	 * @param count
+	 *            the number of bits
+	 * @return the bits, right-aligned
+	 * @throws IOException
+	 *             if fewer than count bits are left or count is out of range.
+	 */
+	private long readBits(final int count) throws IOException {
+		long value = peekBits(count);
+		pos += count;
+		if (Metrics.ENABLED)
+			Metrics.bitsRead(count);
+		return value;
+	}
+
+	/**
+	 * Checks whether multi-byte values have to be byte swapped. Values read
+	 * {@link BitOrder#MSB_FIRST} are big-endian, values read
+	 * {@link BitOrder#LSB_FIRST} are little-endian.
+	 *
+	 * @return true, if the byte order differs from the natural order
+	 */
+	private boolean swapBytes() {
+		return (bitOrder == BitOrder.MSB_FIRST) != bigEndian;
+	}
+
+	/**
+	 * Returns the next count bits (at most 64) in stream order without
+	 * consuming them. The first bit becomes the most significant bit of the
+	 * result, regardless of the bit order. Bits beyond the end of the stream
+	 * are read as zeros.
+	 *
+	 * @param count
+	 *            the number of bits
+	 * @return the bits, right-aligned
+	 */
+	long lookahead(final int count) {
+		if (bitOrder == BitOrder.MSB_FIRST || count == 0)
+			return getBits(pos, count);
+
+		// with LSB_FIRST, the bits of every byte are visited in reverse
+		int start = pos & ~7;
+		int offset = pos & 7;
+		long window = Long.reverseBytes(Long.reverse(getBits(start, 64))) << offset;
+		if (offset + count > 64) {
+			int next = Integer.reverse((int) getBits(start + 64, 8)) >>> 24;
+			window |= next >>> (8 - offset);
+		}
+		return window >>> (64 - count);
+	}
+
+	/**
+	 * Consumes count bits without checking the bounds.
+	 *
+	 * @param count
+	 *            the number of bits
+	 */
+	void advance(final int count) {
+		pos += count;
+		if (Metrics.ENABLED)
+			Metrics.bitsRead(count);
+	}
+
+	/**
+	 * Reads the fields of this bit stream. Streams written before the bit
+	 * order and byte order were added get the default orders.
+	 *
+	 * @param in
+	 *            the stream
+	 * @throws IOException
+	 *             if the stream throws
+	 * @throws ClassNotFoundException
+	 *             if a class of the stream is not found
+	 */
+	private void readObject(final ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		pos = fields.get("pos", 0);
+		mark = fields.get("mark", 0);
+		bitOrder = (BitOrder) fields.get("bitOrder", BitOrder.MSB_FIRST);
+		bigEndian = fields.get("bigEndian", true);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,332 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} and {@link DataInput} view of a {@link BitStream}.
+ * All reads start at the current bit position of the underlying stream and
+ * advance it, so the view and the stream can be used alternately. Trailing
+ * bits that do not form a whole byte are not visible through this view.
+ * <p>
+ * Multi-byte values are read with the bit order and byte order of the
+ * underlying stream. With the default settings this matches the big-endian
+ * format required by {@link DataInput}.
+ *
+ * @author Dbof
+ */
+public class BitStreamInputStream extends InputStream implements DataInput {
+	/** The underlying bit stream. */
+	private final BitStream stream;
+
+	/**
+	 * Instantiates a new input stream view.
+	 *
+	 * @param stream
+	 *            the bit stream
+	 */
+	public BitStreamInputStream(final BitStream stream) {
+		this.stream = stream;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		if (stream.remaining() < 8)
+			return -1;
+		return stream.read() & 0xFF;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off)
+			throw new IndexOutOfBoundsException();
+		if (len == 0)
+			return 0;
+		int count = (int) Math.min(len, stream.remaining() >>> 3);
+		if (count == 0)
+			return -1;
+		stream.readBytes(b, off, count);
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#skip(long)
+	 */
+	@Override
+	public long skip(final long n) {
+		if (n <= 0)
+			return 0;
+		long count = Math.min(n, stream.remaining() >>> 3);
+		stream.position(stream.position() + count * 8);
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#available()
+	 */
+	@Override
+	public int available() {
+		return (int) Math.min(Integer.MAX_VALUE, stream.remaining() >>> 3);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#markSupported()
+	 */
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	/**
+	 * Marks the current position of the underlying stream. The read limit is
+	 * ignored, because no data has to be buffered.
+	 *
+	 * @param readlimit
+	 *            ignored
+	 */
+	@Override
+	public void mark(final int readlimit) {
+		stream.mark();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#reset()
+	 */
+	@Override
+	public void reset() {
+		stream.reset();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readFully(byte[])
+	 */
+	@Override
+	public void readFully(final byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readFully(byte[], int, int)
+	 */
+	@Override
+	public void readFully(final byte[] b, final int off, final int len)
+			throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off)
+			throw new IndexOutOfBoundsException();
+		require(len);
+		stream.readBytes(b, off, len);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#skipBytes(int)
+	 */
+	@Override
+	public int skipBytes(final int n) {
+		return (int) skip(n);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readBoolean()
+	 */
+	@Override
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readByte()
+	 */
+	@Override
+	public byte readByte() throws IOException {
+		require(1);
+		return stream.read();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readUnsignedByte()
+	 */
+	@Override
+	public int readUnsignedByte() throws IOException {
+		return readByte() & 0xFF;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readShort()
+	 */
+	@Override
+	public short readShort() throws IOException {
+		require(2);
+		return stream.readShort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readUnsignedShort()
+	 */
+	@Override
+	public int readUnsignedShort() throws IOException {
+		require(2);
+		return stream.readUnsignedShort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readChar()
+	 */
+	@Override
+	public char readChar() throws IOException {
+		return (char) readUnsignedShort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readInt()
+	 */
+	@Override
+	public int readInt() throws IOException {
+		require(4);
+		return stream.readInteger();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readLong()
+	 */
+	@Override
+	public long readLong() throws IOException {
+		require(8);
+		return stream.readLong();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readFloat()
+	 */
+	@Override
+	public float readFloat() throws IOException {
+		require(4);
+		return stream.readFloat();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readDouble()
+	 */
+	@Override
+	public double readDouble() throws IOException {
+		require(8);
+		return stream.readDouble();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readLine()
+	 */
+	@Override
+	public String readLine() throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c = read();
+		if (c == -1)
+			return null;
+		while (c != -1 && c != '\n') {
+			if (c == '\r') {
+				// swallow the '\n' of a "\r\n" line terminator
+				if (stream.remaining() >= 8 && stream.peekBits(8) == '\n')
+					stream.read();
+				break;
+			}
+			line.append((char) c);
+			c = read();
+		}
+		return line.toString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.DataInput#readUTF()
+	 */
+	@Override
+	public String readUTF() throws IOException {
+		return DataInputStream.readUTF(this);
+	}
+
+	/**
+	 * Checks that enough whole bytes are left in the underlying stream.
+	 *
+	 * @param bytes
+	 *            the number of bytes needed
+	 * @throws EOFException
+	 *             if the stream ends before.
+	 */
+	private void require(final int bytes) throws EOFException {
+		if (stream.remaining() < bytes * 8L)
+			throw new EOFException();
+	}
+}
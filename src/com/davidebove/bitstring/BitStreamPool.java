@@ -0,0 +1,137 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * A pool of reusable bit streams for decode loops that handle many small
+ * inputs. Every thread keeps its own free streams, so acquiring and releasing
+ * needs no locking and, once the streams have grown to the input size, no
+ * allocation.
+ * <p>
+ * Example:
+ * <p>
+ * BitStream s = pool.acquire(packet, 0, size);<br>
+ * try { ... } finally { pool.release(s); }
+ *
+ * @author Dbof
+ */
+public class BitStreamPool {
+	/** The default limit for the capacity of a retained stream (1 MB). */
+	public static final long DEFAULT_MAX_RETAINED_BITS = 8L << 20;
+
+	/** The number of free streams kept per thread. */
+	private static final int MAX_FREE = 8;
+
+	/** The limit for the capacity of a retained stream. */
+	private final long maxRetainedBits;
+
+	/** The free streams of every thread. */
+	private final ThreadLocal<ArrayDeque<BitStream>> free = ThreadLocal
+			.withInitial(() -> new ArrayDeque<>(MAX_FREE));
+
+	/**
+	 * Instantiates a new pool that retains streams of up to 1 MB.
+	 */
+	public BitStreamPool() {
+		this(DEFAULT_MAX_RETAINED_BITS);
+	}
+
+	/**
+	 * Instantiates a new pool.
+	 *
+	 * @param maxRetainedBits
+	 *            the largest capacity in bits a released stream may have to be
+	 *            kept; larger streams are left to the garbage collector
+	 */
+	public BitStreamPool(final long maxRetainedBits) {
+		if (maxRetainedBits < 0)
+			throw new IllegalArgumentException("Limit must not be negative!");
+		this.maxRetainedBits = maxRetainedBits;
+	}
+
+	/**
+	 * Returns a stream over a range of a byte array. The stream starts at
+	 * position 0 with the default bit order and byte order.
+	 *
+	 * @param data
+	 *            the data
+	 * @param offset
+	 *            the index of the first byte
+	 * @param count
+	 *            the number of bytes
+	 * @return the stream
+	 * @see BitStream#reset(byte[], int, int)
+	 */
+	public BitStream acquire(final byte[] data, final int offset,
+			final int count) {
+		BitStream stream = take();
+		stream.reset(data, offset, count);
+		return stream;
+	}
+
+	/**
+	 * Returns a stream over the remaining bytes of a buffer. The stream starts
+	 * at position 0 with the default bit order and byte order.
+	 *
+	 * @param data
+	 *            the buffer, heap or direct
+	 * @return the stream
+	 * @see BitStream#reset(ByteBuffer)
+	 */
+	public BitStream acquire(final ByteBuffer data) {
+		BitStream stream = take();
+		stream.reset(data);
+		return stream;
+	}
+
+	/**
+	 * Returns a stream to the pool of the calling thread. The stream must not
+	 * be used afterwards.
+	 *
+	 * @param stream
+	 *            the stream
+	 */
+	public void release(final BitStream stream) {
+		ArrayDeque<BitStream> streams = free.get();
+		if (streams.size() < MAX_FREE
+				&& stream.words.length * 64L <= maxRetainedBits) {
+			stream.clear();
+			streams.push(stream);
+		}
+	}
+
+	/**
+	 * Takes a free stream of the calling thread or creates a new one.
+	 */
+	private BitStream take() {
+		BitStream stream = free.get().poll();
+		if (stream == null)
+			return new BitStream();
+		return stream.bitOrder(BitOrder.MSB_FIRST).order(ByteOrder.BIG_ENDIAN);
+	}
+}
@@ -23,28 +23,83 @@ package com.davidebove.bitstring;
  * @author Dbof <dbof@ymail.com>
  */
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 
 /**
  * A mutable bit string class with easy-to-use methods for creation,
  * manipulation and analysis of binary data.
+ * <p>
+ * The bits are packed into 64-bit words: bit 0 is the most significant bit of
+ * the first word. Bits beyond the length are always zero.
  * 
  * @author Dbof
  *
  */
-public class BitString implements Serializable {
+public class BitString implements Serializable, Comparable<BitString> {
 
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = -8890179148412068511L;
 
-	/** The regex pattern. */
-	private static String REGEX_PATTERN = "^[0|1]+$";
+	/**
+	 * The serialized form: the bits as a string of '0' and '1' characters, as
+	 * written by earlier versions that stored the bits in a string.
+	 *
+	 * @serialField bits String the bits
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("bits", String.class) };
+
+	/** The xxHash64 primes used by {@link #fingerprint(int, int)}. */
+	private static final long PRIME64_1 = 0x9E3779B185EBCA87L,
+			PRIME64_2 = 0xC2B2AE3D27D4EB4FL, PRIME64_3 = 0x165667B19E3779F9L,
+			PRIME64_4 = 0x85EBCA77C2B2AE63L, PRIME64_5 = 0x27D4EB2F165667C5L;
+
+	/** The hex digits of every byte value, two characters per byte. */
+	private static final char[] HEX_DIGITS = new char[512];
 
-	/** The bits. */
-	protected String bits;
+	/** The value of every hex digit character, or -1. */
+	private static final byte[] HEX_VALUES = new byte[128];
+
+	/** The number of characters formatted at once by the streaming codecs. */
+	private static final int CHUNK_CHARS = 4096;
+
+	static {
+		String digits = "0123456789abcdef";
+		for (int i = 0; i < 256; i++) {
+			HEX_DIGITS[2 * i] = digits.charAt(i >>> 4);
+			HEX_DIGITS[2 * i + 1] = digits.charAt(i & 15);
+		}
+		Arrays.fill(HEX_VALUES, (byte) -1);
+		for (int i = 0; i < 16; i++) {
+			HEX_VALUES[digits.charAt(i)] = (byte) i;
+			HEX_VALUES[Character.toUpperCase(digits.charAt(i))] = (byte) i;
+		}
+	}
+
+	/** The packed bits. */
+	protected transient long[] words;
+
+	/** The number of bits. */
+	protected transient int length;
+
+	/**
+	 * Instantiates a new, empty bit string.
+	 */
+	BitString() {
+		words = new long[0];
+	}
 
 	/**
 	 * Copy constructor.
@@ -53,7 +108,8 @@ public class BitString implements Serializable {
 	 *            the bitstring
 	 */
 	public BitString(final BitString bitstring) {
-		bits = bitstring.bits;
+		words = Arrays.copyOf(bitstring.words(), wordCount(bitstring.length));
+		length = bitstring.length;
 	}
 
 	/**
@@ -63,7 +119,8 @@ public class BitString implements Serializable {
 	 *            the data
 	 */
 	public BitString(final byte[] data) {
-		bits = byteArrayToString(data);
+		words = new long[wordCount(data.length * 8)];
+		append(data);
 	}
 
 	/**
@@ -88,9 +145,80 @@ public class BitString implements Serializable {
 	 *            the data
 	 */
 	public BitString(final String data) {
-		if (!data.matches(REGEX_PATTERN))
+		words = new long[wordCount(padded(data.length()))];
+		append(data);
+	}
+
+	/**
+	 * Instantiates a new bit string from the remaining bytes of a buffer. The
+	 * bytes are copied; the position of the buffer is not changed.
+	 *
+	 * @param data
+	 *            the buffer, heap or direct
+	 * @see #wrap(ByteBuffer)
+	 */
+	public BitString(final ByteBuffer data) {
+		words = new long[wordCount(data.remaining() * 8)];
+		append(data);
+	}
+
+	/**
+	 * Returns a bit string that reads the remaining bytes of a buffer in place,
+	 * without copying them. Reading, searching and setting single bits work on
+	 * the buffer directly, so changes of the buffer are visible in the bit
+	 * string and vice versa. Other reading operations, like toString, equals
+	 * or hammingDistance, read a temporary copy of the bits and leave the bit
+	 * string attached. Operations that change the length or move bits, like
+	 * append, shiftLeft or and, first copy the bits to the heap; afterwards
+	 * the bit string no longer shares the buffer.
+	 * <p>
+	 * On Java 14 and later, a MemorySegment can be wrapped through
+	 * segment.asByteBuffer().
+	 *
+	 * @param data
+	 *            the buffer, heap or direct
+	 * @return the bit string
+	 */
+	public static BitString wrap(final ByteBuffer data) {
+		return new BufferBitStream(data);
+	}
+
+	/**
+	 * Creates a bit string of exactly the given bits. Unlike
+	 * {@link #BitString(String)}, the bits are not padded to whole bytes, so
+	 * this can build keys of any length, such as the 12-bit route prefix
+	 * "101011000001".
+	 *
+	 * @param data
+	 *            the bits as '0' and '1' characters, may be empty
+	 * @return the bit string
+	 * @throws IllegalArgumentException
+	 *             if the string contains other characters
+	 */
+	public static BitString of(final String data) {
+		if (data.length() > 0 && !isBitString(data))
 			throw new IllegalArgumentException("String is not a bit string!");
-		bits = pad(data);
+		BitString result = new BitString();
+		result.words = pack(data);
+		result.length = data.length();
+		return result;
+	}
+
+	/**
+	 * Returns a bit string of the given number of zero bits, rounded up to
+	 * whole bytes, that is stored in a direct buffer outside the Java heap.
+	 * This keeps large bitmaps out of garbage collection. Single bits can be
+	 * read and set in place; see {@link #wrap(ByteBuffer)} for the operations
+	 * that copy the bits to the heap.
+	 *
+	 * @param bits
+	 *            the number of bits
+	 * @return the bit string
+	 */
+	public static BitString allocateDirect(final int bits) {
+		if (bits < 0)
+			throw new IllegalArgumentException("Length must not be negative!");
+		return new BufferBitStream(ByteBuffer.allocateDirect((bits + 7) >>> 3));
 	}
 
 	/**
@@ -100,7 +228,57 @@ public class BitString implements Serializable {
 	 *            the data
 	 */
 	public void append(final byte[] data) {
-		bits = bits.concat(byteArrayToString(data));
+		append(data, 0, data.length);
+	}
+
+	/**
+	 * Appends a range of a byte array to the current bitstring.
+	 *
+	 * @param data
+	 *            the data
+	 * @param offset
+	 *            the index of the first byte
+	 * @param count
+	 *            the number of bytes
+	 * @throws IndexOutOfBoundsException
+	 *             if the range is not within the array
+	 */
+	public void append(final byte[] data, final int offset, final int count) {
+		if (offset < 0 || count < 0 || offset > data.length - count)
+			throw new IndexOutOfBoundsException();
+		ensureCapacity(length + count * 8L);
+		int i = offset;
+		int end = offset + count;
+		// whole words first
+		for (; i + 8 <= end; i += 8) {
+			long word = 0;
+			for (int j = 0; j < 8; j++)
+				word = (word << 8) | (data[i + j] & 0xFF);
+			appendBits(word, 64);
+		}
+		for (; i < end; i++)
+			appendBits(data[i] & 0xFF, 8);
+	}
+
+	/**
+	 * Appends the remaining bytes of a buffer to the current bitstring. The
+	 * position of the buffer is not changed.
+	 *
+	 * @param data
+	 *            the buffer, heap or direct
+	 */
+	public void append(final ByteBuffer data) {
+		int i = data.position();
+		int end = data.limit();
+		ensureCapacity(length + (end - i) * 8L);
+		boolean swap = data.order() != ByteOrder.BIG_ENDIAN;
+		// whole words first
+		for (; i + 8 <= end; i += 8) {
+			long word = data.getLong(i);
+			appendBits(swap ? Long.reverseBytes(word) : word, 64);
+		}
+		for (; i < end; i++)
+			appendBits(data.get(i) & 0xFF, 8);
 	}
 
 	/**
@@ -110,7 +288,14 @@ public class BitString implements Serializable {
 	 *            the data
 	 */
 	public void append(final BitString data) {
-		bits = bits.concat(data.bits);
+		// data may be this bit string
+		long[] src = data.words();
+		int count = data.length;
+		ensureCapacity(length + count);
+		for (int i = 0; i < count; i += 64) {
+			int n = Math.min(64, count - i);
+			appendBits(src[i >>> 6] >>> (64 - n), n);
+		}
 	}
 
 	/**
@@ -120,9 +305,17 @@ public class BitString implements Serializable {
 	 *            the data
 	 */
 	public void append(final String data) {
-		if (!data.matches(REGEX_PATTERN))
+		if (!isBitString(data))
 			throw new IllegalArgumentException("String is not a bit string!");
-		bits = bits.concat(pad(data));
+		int count = padded(data.length());
+		ensureCapacity(length + count);
+		// add padding
+		length += count - data.length();
+		for (int i = 0; i < data.length(); i++) {
+			if (data.charAt(i) == '1')
+				words[length >>> 6] |= 1L << (63 - (length & 63));
+			length++;
+		}
 	}
 
 	/**
@@ -137,7 +330,7 @@ public class BitString implements Serializable {
 	 *            true, if byte array should be padded (to 4 bytes)
 	 */
 	public void append(final int num, final boolean pad) {
-		bits = bits.concat(byteArrayToString(intToByteArray(num, pad)));
+		append(intToByteArray(num, pad));
 	}
 
 	/**
@@ -149,7 +342,11 @@ public class BitString implements Serializable {
 	 * @return index
 	 */
 	public int find(final byte[] sequence) {
-		return find(byteArrayToString(sequence));
+		BitString pattern = new BitString(sequence);
+		int index = indexOf(pattern.words, pattern.length, 0);
+		if (Metrics.ENABLED)
+			Metrics.searched(scanned(index, pattern.length, 0));
+		return index;
 	}
 
 	/**
@@ -161,7 +358,31 @@ public class BitString implements Serializable {
 	 * @return index
 	 */
 	public int find(final String bitstring) {
-		return bits.indexOf(bitstring);
+		if (bitstring.length() > 0 && !isBitString(bitstring))
+			return -1;
+		int index = indexOf(pack(bitstring), bitstring.length(), 0);
+		if (Metrics.ENABLED)
+			Metrics.searched(scanned(index, bitstring.length(), 0));
+		return index;
+	}
+
+	/**
+	 * Returns the index within this bit string of the first occurrence of
+	 * another bit string, starting the search at the specified index. No data
+	 * is copied, so this can be used to scan for a pattern repeatedly.
+	 *
+	 * @param pattern
+	 *            the bit string to find
+	 * @param fromIndex
+	 *            the index to start from
+	 * @return index, or -1 if the pattern is not found
+	 */
+	public int find(final BitString pattern, final int fromIndex) {
+		int from = Math.max(fromIndex, 0);
+		int index = indexOf(pattern.words(), pattern.length, from);
+		if (Metrics.ENABLED)
+			Metrics.searched(scanned(index, pattern.length, from));
+		return index;
 	}
 
 	/**
@@ -174,11 +395,16 @@ public class BitString implements Serializable {
 	 */
 	public List<Integer> findAll(final String bitstring) {
 		ArrayList<Integer> result = new ArrayList<>();
-		int index = bits.indexOf(bitstring);
+		if (bitstring.length() > 0 && !isBitString(bitstring))
+			return result;
+		long[] pattern = pack(bitstring);
+		int index = indexOf(pattern, bitstring.length(), 0);
 		while (index != -1) {
 			result.add(index);
-			index = bits.indexOf(bitstring, index + 1);
+			index = indexOf(pattern, bitstring.length(), index + 1);
 		}
+		if (Metrics.ENABLED)
+			Metrics.searched(scanned(-1, bitstring.length(), 0));
 		return result;
 	}
 
@@ -194,7 +420,21 @@ public class BitString implements Serializable {
 	 * @return the specified substring.
 	 */
 	public BitString substring(final int beginIndex, final int endIndex) {
-		return new BitString(bits.substring(beginIndex, endIndex));
+		if (beginIndex < 0 || endIndex > length || beginIndex > endIndex)
+			throw new IndexOutOfBoundsException();
+		if (beginIndex == endIndex)
+			throw new IllegalArgumentException("String is not a bit string!");
+
+		int count = endIndex - beginIndex;
+		BitString result = new BitString();
+		result.ensureCapacity(padded(count));
+		// add padding
+		result.length = padded(count) - count;
+		for (int i = beginIndex; i < endIndex; i += 64) {
+			int n = Math.min(64, endIndex - i);
+			result.appendBits(getBits(i, n), n);
+		}
+		return result;
 	}
 
 	/**
@@ -207,7 +447,31 @@ public class BitString implements Serializable {
 	 * @return the specified substring.
 	 */
 	public BitString substring(final int beginIndex) {
-		return new BitString(bits.substring(beginIndex));
+		return substring(beginIndex, length);
+	}
+
+	/**
+	 * Returns a copy of the first bits of this bit string. Unlike
+	 * {@link #substring(int, int)}, the result is not padded to whole bytes
+	 * and may be empty, so it can serve as a prefix key, for example for a
+	 * {@link PrefixTrie}.
+	 *
+	 * @param bits
+	 *            the number of bits
+	 * @return the prefix
+	 * @throws IndexOutOfBoundsException
+	 *             if bits is negative or greater than the length
+	 */
+	public BitString prefix(final int bits) {
+		if (bits < 0 || bits > length)
+			throw new IndexOutOfBoundsException();
+		BitString result = new BitString();
+		result.ensureCapacity(bits);
+		for (int i = 0; i < bits; i += 64) {
+			int n = Math.min(64, bits - i);
+			result.appendBits(getBits(i, n), n);
+		}
+		return result;
 	}
 
 	/**
@@ -218,7 +482,9 @@ public class BitString implements Serializable {
 	 * @return true for 1 and false for 0
 	 */
 	public boolean bitSet(final int index) {
-		return bits.charAt(index) == '1';
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException();
+		return (words[index >>> 6] & (1L << (63 - (index & 63)))) != 0;
 	}
 
 	/**
@@ -240,11 +506,233 @@ public class BitString implements Serializable {
 	 *            the value (0 or 1) to set the bit to
 	 */
 	public void setBit(final int index, final boolean value) {
-		if (index < 0 || index >= bits.length())
+		if (index < 0 || index >= length)
 			throw new IndexOutOfBoundsException();
-		char[] tmp = bits.toCharArray();
-		tmp[index] = (value) ? '1' : '0';
-		bits = String.valueOf(tmp);
+		long mask = 1L << (63 - (index & 63));
+		if (value)
+			words[index >>> 6] |= mask;
+		else
+			words[index >>> 6] &= ~mask;
+	}
+
+	/**
+	 * Returns the number of bits set to 1.
+	 *
+	 * @return the cardinality
+	 */
+	public int cardinality() {
+		int count = 0;
+		for (int i = 0; i < wordCount(length); i++)
+			count += Long.bitCount(words[i]);
+		return count;
+	}
+
+	/**
+	 * Returns the number of positions at which this bit string and another
+	 * one of the same length differ.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @return the Hamming distance
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public int hammingDistance(final BitString other) {
+		if (length != other.length)
+			throw new IllegalArgumentException("Bit strings differ in length!");
+		long[] mine = words();
+		long[] theirs = other.words();
+		int count = 0;
+		for (int i = 0; i < wordCount(length); i++)
+			count += Long.bitCount(mine[i] ^ theirs[i]);
+		return count;
+	}
+
+	/**
+	 * Returns the number of positions at which both this bit string and
+	 * another one have a bit set to 1. Missing bits of the shorter bit string
+	 * count as 0.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @return the number of common bits
+	 */
+	public int commonBits(final BitString other) {
+		long[] mine = words();
+		long[] theirs = other.words();
+		int count = 0;
+		for (int i = 0; i < wordCount(Math.min(length, other.length)); i++)
+			count += Long.bitCount(mine[i] & theirs[i]);
+		return count;
+	}
+
+	/**
+	 * Returns the Jaccard similarity of the bits set in this bit string and
+	 * another one, that is the number of common bits divided by the number of
+	 * bits set in either. For bit strings this is the same as the Tanimoto
+	 * coefficient. Missing bits of the shorter bit string count as 0.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @return the similarity between 0 and 1, or 1 if no bit is set at all
+	 */
+	public double jaccard(final BitString other) {
+		long[] mine = words();
+		long[] theirs = other.words();
+		int common = 0;
+		int either = 0;
+		int shared = wordCount(Math.min(length, other.length));
+		for (int i = 0; i < shared; i++) {
+			common += Long.bitCount(mine[i] & theirs[i]);
+			either += Long.bitCount(mine[i] | theirs[i]);
+		}
+		long[] longer = (length > other.length) ? mine : theirs;
+		for (int i = shared; i < wordCount(Math.max(length, other.length)); i++)
+			either += Long.bitCount(longer[i]);
+		return (either == 0) ? 1.0 : (double) common / either;
+	}
+
+	/**
+	 * Sets every bit to the AND of itself and the bit at the same index of
+	 * another bit string of the same length.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public void and(final BitString other) {
+		checkSameLength(other);
+		long[] mine = mutableWords();
+		for (int i = 0; i < wordCount(length); i++)
+			mine[i] &= other.getBits(i << 6, 64);
+	}
+
+	/**
+	 * Sets every bit to the OR of itself and the bit at the same index of
+	 * another bit string of the same length.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public void or(final BitString other) {
+		checkSameLength(other);
+		long[] mine = mutableWords();
+		for (int i = 0; i < wordCount(length); i++)
+			mine[i] |= other.getBits(i << 6, 64);
+	}
+
+	/**
+	 * Sets every bit to the XOR of itself and the bit at the same index of
+	 * another bit string of the same length.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public void xor(final BitString other) {
+		checkSameLength(other);
+		long[] mine = mutableWords();
+		for (int i = 0; i < wordCount(length); i++)
+			mine[i] ^= other.getBits(i << 6, 64);
+	}
+
+	/**
+	 * Clears every bit that is set at the same index of another bit string of
+	 * the same length.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public void andNot(final BitString other) {
+		checkSameLength(other);
+		long[] mine = mutableWords();
+		for (int i = 0; i < wordCount(length); i++)
+			mine[i] &= ~other.getBits(i << 6, 64);
+	}
+
+	/**
+	 * Shifts all bits n positions towards the start of this bit string. The
+	 * first n bits are dropped and n zeros are appended, so the length stays
+	 * the same.
+	 *
+	 * @param n
+	 *            the number of positions
+	 */
+	public void shiftLeft(final int n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Shift distance must not be negative!");
+		shiftLeft(mutableWords(), wordCount(length), n);
+	}
+
+	/**
+	 * Shifts all bits n positions towards the end of this bit string. The last
+	 * n bits are dropped and n zeros are inserted at the start, so the length
+	 * stays the same.
+	 *
+	 * @param n
+	 *            the number of positions
+	 */
+	public void shiftRight(final int n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Shift distance must not be negative!");
+		shiftRight(mutableWords(), length, n);
+	}
+
+	/**
+	 * Rotates all bits n positions towards the start of this bit string. The
+	 * first n bits are moved to the end. A negative distance rotates to the
+	 * right.
+	 *
+	 * @param n
+	 *            the number of positions
+	 */
+	public void rotateLeft(final int n) {
+		if (length == 0)
+			return;
+		int distance = Math.floorMod(n, length);
+		if (distance == 0)
+			return;
+		long[] mine = mutableWords();
+		long[] wrapped = Arrays.copyOf(mine, wordCount(length));
+		shiftLeft(mine, wrapped.length, distance);
+		shiftRight(wrapped, length, length - distance);
+		for (int i = 0; i < wrapped.length; i++)
+			mine[i] |= wrapped[i];
+	}
+
+	/**
+	 * Rotates all bits n positions towards the end of this bit string. The
+	 * last n bits are moved to the start. A negative distance rotates to the
+	 * left.
+	 *
+	 * @param n
+	 *            the number of positions
+	 */
+	public void rotateRight(final int n) {
+		if (length == 0)
+			return;
+		rotateLeft(-Math.floorMod(n, length));
+	}
+
+	/**
+	 * Reverses the order of all bits of this bit string.
+	 */
+	public void reverse() {
+		long[] mine = mutableWords();
+		int count = wordCount(length);
+		for (int i = 0, j = count - 1; i <= j; i++, j--) {
+			long tmp = Long.reverse(mine[i]);
+			mine[i] = Long.reverse(mine[j]);
+			mine[j] = tmp;
+		}
+		// the padding of the last word is now at the start
+		shiftLeft(mine, count, count * 64 - length);
 	}
 
 	/*
@@ -254,7 +742,13 @@ public class BitString implements Serializable {
 	 */
 	@Override
 	public String toString() {
-		return bits;
+		long[] mine = words();
+		char[] result = new char[length];
+		for (int i = 0; i < length; i++)
+			result[i] = (mine[i >>> 6] << (i & 63)) < 0 ? '1' : '0';
+		if (Metrics.ENABLED)
+			Metrics.converted(length);
+		return new String(result);
 	}
 
 	/**
@@ -263,17 +757,144 @@ public class BitString implements Serializable {
 	 * @return the bit string data as byte sequence
 	 */
 	public byte[] toByteArray() {
-		byte[] result = new byte[bits.length() / 8];
-		int b_index = 0;
+		byte[] result = new byte[(length + 7) >>> 3];
+		for (int i = 0; i < result.length; i++)
+			result[i] = (byte) (words[i >>> 3] >>> (56 - ((i & 7) << 3)));
+		if (Metrics.ENABLED)
+			Metrics.converted(length);
+		return result;
+	}
 
-		// parse every 8 bits
-		for (int i = 0; i < bits.length(); i += 8) {
-			short b = (short) (Short.parseShort(bits.substring(i, i + 8), 2));
-			result[b_index++] = (byte) b;
+	/**
+	 * Creates a bit string from hex digits of any case. Every digit becomes
+	 * four bits; an odd number of digits is padded with a leading zero digit.
+	 *
+	 * @param hex
+	 *            the hex digits, without prefix or separators
+	 * @return the bit string
+	 * @throws IllegalArgumentException
+	 *             if the string contains a character that is not a hex digit
+	 */
+	public static BitString fromHex(final String hex) {
+		int digits = hex.length();
+		int pad = digits & 1;
+		BitString result = new BitString();
+		result.ensureCapacity((digits + pad) * 4L);
+		long[] words = result.words;
+		for (int i = 0; i < digits; i++) {
+			char c = hex.charAt(i);
+			int value = (c < 128) ? HEX_VALUES[c] : -1;
+			if (value < 0)
+				throw new IllegalArgumentException("String is not a hex string!");
+			int index = (i + pad) * 4;
+			words[index >>> 6] |= (long) value << (60 - (index & 63));
 		}
+		result.length = (digits + pad) * 4;
 		return result;
 	}
 
+	/**
+	 * Returns the bits as lowercase hex digits, four bits per digit. A last,
+	 * incomplete digit is padded with zeros.
+	 *
+	 * @return the hex string
+	 */
+	public String toHex() {
+		StringBuilder result = new StringBuilder((length + 3) >>> 2);
+		try {
+			toHex(result);
+		} catch (IOException e) {
+			// a StringBuilder does not throw
+			throw new AssertionError(e);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Appends the bits as lowercase hex digits, like {@link #toHex()}, without
+	 * building the whole string in memory.
+	 *
+	 * @param out
+	 *            the destination
+	 * @throws IOException
+	 *             if the destination throws
+	 */
+	public void toHex(final Appendable out) throws IOException {
+		long[] mine = words();
+		int digits = (length + 3) >>> 2;
+		char[] chunk = new char[Math.min(CHUNK_CHARS, digits + 1)];
+		for (int i = 0; i < digits; i += CHUNK_CHARS) {
+			int count = Math.min(CHUNK_CHARS, digits - i);
+			for (int j = 0; j < count; j += 2) {
+				int index = (i + j) * 4;
+				int value = (int) (mine[index >>> 6] >>> (56 - (index & 63)))
+						& 0xFF;
+				chunk[j] = HEX_DIGITS[2 * value];
+				chunk[j + 1] = HEX_DIGITS[2 * value + 1];
+			}
+			out.append(CharBuffer.wrap(chunk), 0, count);
+		}
+		if (Metrics.ENABLED)
+			Metrics.converted(length);
+	}
+
+	/**
+	 * Creates a bit string from Base64 text in the basic alphabet of RFC 4648.
+	 *
+	 * @param base64
+	 *            the Base64 text
+	 * @return the bit string
+	 * @throws IllegalArgumentException
+	 *             if the text is not valid Base64
+	 */
+	public static BitString fromBase64(final String base64) {
+		return new BitString(Base64.getDecoder().decode(base64));
+	}
+
+	/**
+	 * Returns the bytes of this bit string as Base64 text in the basic
+	 * alphabet of RFC 4648, with padding.
+	 *
+	 * @return the Base64 text
+	 */
+	public String toBase64() {
+		return Base64.getEncoder().encodeToString(toByteArray());
+	}
+
+	/**
+	 * Appends the bytes of this bit string as Base64 text, like
+	 * {@link #toBase64()}, without building the whole text in memory.
+	 *
+	 * @param out
+	 *            the destination
+	 * @throws IOException
+	 *             if the destination throws
+	 */
+	public void toBase64(final Appendable out) throws IOException {
+		long[] mine = words();
+		Base64.Encoder encoder = Base64.getEncoder();
+		int bytes = (length + 7) >>> 3;
+		// whole groups of three bytes, so only the last chunk is padded
+		int step = CHUNK_CHARS / 4 * 3;
+		byte[] source = new byte[Math.min(step, bytes)];
+		byte[] encoded = new byte[CHUNK_CHARS];
+		char[] chunk = new char[CHUNK_CHARS];
+		for (int i = 0; i < bytes; i += step) {
+			int count = Math.min(step, bytes - i);
+			byte[] in = (count == source.length) ? source : new byte[count];
+			for (int j = 0; j < count; j++) {
+				int index = (i + j) * 8;
+				in[j] = (byte) (mine[index >>> 6] >>> (56 - (index & 63)));
+			}
+			int n = encoder.encode(in, encoded);
+			for (int j = 0; j < n; j++)
+				chunk[j] = (char) encoded[j];
+			out.append(CharBuffer.wrap(chunk), 0, n);
+		}
+		if (Metrics.ENABLED)
+			Metrics.converted(length);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -282,8 +903,11 @@ public class BitString implements Serializable {
 	@Override
 	public int hashCode() {
 		final int prime = 31;
+		long[] mine = words();
 		int result = 1;
-		result = prime * result + ((bits == null) ? 0 : bits.hashCode());
+		for (int i = 0; i < wordCount(length); i++)
+			result = prime * result + Long.hashCode(mine[i]);
+		result = prime * result + length;
 		return result;
 	}
 
@@ -304,16 +928,57 @@ public class BitString implements Serializable {
 			return false;
 		}
 		BitString other = (BitString) obj;
-		if (bits == null) {
-			if (other.bits != null) {
+		if (length != other.length) {
+			return false;
+		}
+		long[] mine = words();
+		long[] theirs = other.words();
+		for (int i = 0; i < wordCount(length); i++) {
+			if (mine[i] != theirs[i]) {
 				return false;
 			}
-		} else if (!bits.equals(other.bits)) {
-			return false;
 		}
 		return true;
 	}
 
+	/**
+	 * Compares two bit strings lexicographically, bit by bit from index 0. If
+	 * one bit string is a prefix of the other, the shorter one comes first.
+	 * The comparison reads 64 bits at a time, so no strings or copies are
+	 * created and buffer views stay attached.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @return a negative number, zero or a positive number if this bit string
+	 *         is less than, equal to or greater than the other one
+	 */
+	@Override
+	public int compareTo(final BitString other) {
+		int common = longestCommonPrefix(other);
+		if (common == Math.min(length, other.length))
+			return Integer.compare(length, other.length);
+		return (getBits(common, 1) != 0) ? 1 : -1;
+	}
+
+	/**
+	 * Returns the length of the longest common prefix of this bit string and
+	 * another one.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @return the number of leading bits that are equal in both
+	 */
+	public int longestCommonPrefix(final BitString other) {
+		int common = Math.min(length, other.length);
+		for (int i = 0; i < common; i += 64) {
+			int n = Math.min(64, common - i);
+			long diff = getBits(i, n) ^ other.getBits(i, n);
+			if (diff != 0)
+				return i + Long.numberOfLeadingZeros(diff) - (64 - n);
+		}
+		return common;
+	}
+
 	/**
 	 * Returns the length of this string. The length is equal to the number of
 	 * bits in the string
@@ -321,39 +986,341 @@ public class BitString implements Serializable {
 	 * @return the length of the sequence of bits represented by this object.
 	 */
 	public int length() {
-		return bits.length();
+		return length;
 	}
 
 	/**
 	 * Clears this bit string. Note: This is currently the only way to
-	 * completely empty a bit string.
+	 * completely empty a bit string. The capacity is kept, so the bit string
+	 * can be refilled without allocating.
 	 */
 	public void clear() {
-		bits = "";
+		Arrays.fill(words, 0, wordCount(length), 0L);
+		length = 0;
 	}
 
 	/**
-	 * Converts a byte array to a (binary) string.
+	 * Returns a 64-bit fingerprint of the whole bit string.
 	 *
-	 * @param data
-	 *            the byte data to convert
-	 * @return the binary string
+	 * @return the fingerprint
+	 * @see #fingerprint(int, int)
+	 */
+	public long fingerprint() {
+		return fingerprint(0, length);
+	}
+
+	/**
+	 * Returns a 64-bit fingerprint of a range of this bit string. Equal bit
+	 * sequences have equal fingerprints, regardless of where they are located,
+	 * so ranges can be compared without creating substrings. The hash is
+	 * built after xxHash64 and processes 64 bits per step; it is not suitable
+	 * for cryptographic purposes.
+	 *
+	 * @param beginIndex
+	 *            - the beginning index, inclusive.
+	 * @param endIndex
+	 *            - the ending index, exclusive.
+	 * @return the fingerprint
+	 */
+	public long fingerprint(final int beginIndex, final int endIndex) {
+		if (beginIndex < 0 || endIndex > length || beginIndex > endIndex)
+			throw new IndexOutOfBoundsException();
+
+		long hash = PRIME64_5 + (endIndex - beginIndex);
+		for (int i = beginIndex; i < endIndex; i += 64) {
+			long lane = getBits(i, Math.min(64, endIndex - i));
+			lane *= PRIME64_2;
+			lane = Long.rotateLeft(lane, 31) * PRIME64_1;
+			hash ^= lane;
+			hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+		}
+
+		hash ^= hash >>> 33;
+		hash *= PRIME64_2;
+		hash ^= hash >>> 29;
+		hash *= PRIME64_3;
+		hash ^= hash >>> 32;
+		return hash;
+	}
+
+	/**
+	 * Returns the packed bits of this bit string for reading. Subclasses that
+	 * keep their bits elsewhere return a copy, so the result must not be
+	 * changed.
+	 *
+	 * @return the words
+	 */
+	long[] words() {
+		return words;
+	}
+
+	/**
+	 * Checks that another bit string has the same length, for a logical
+	 * operation with this one. The operations read the other bit string
+	 * through {@link #getBits(int, int)}, so a buffer view is neither copied
+	 * nor detached.
+	 *
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	void checkSameLength(final BitString other) {
+		if (length != other.length)
+			throw new IllegalArgumentException("Bit strings differ in length!");
+	}
+
+	/**
+	 * Returns the word array of this bit string for changing bits in place.
+	 * Subclasses that keep their bits elsewhere move them to the word array
+	 * first.
+	 *
+	 * @return the words
+	 */
+	long[] mutableWords() {
+		return words;
+	}
+
+	/**
+	 * Returns count bits (at most 64) starting at the specified index. The
+	 * first bit becomes the most significant bit of the result. Bits beyond
+	 * the end of the bit string are read as zeros.
+	 *
+	 * @param index
+	 *            the index of the first bit
+	 * @param count
+	 *            the number of bits
+	 * @return the bits, right-aligned
 	 */
-	private static String byteArrayToString(final byte[] data) {
-		StringBuilder builder = new StringBuilder();
-		StringBuilder inner = new StringBuilder();
+	long getBits(final int index, final int count) {
+		if (count == 0)
+			return 0;
+		int word = index >>> 6;
+		int offset = index & 63;
+		long value = word < words.length ? words[word] << offset : 0;
+		if (offset != 0 && word + 1 < words.length)
+			value |= words[word + 1] >>> (64 - offset);
+		return value >>> (64 - count);
+	}
 
-		for (int i = 0; i < data.length; i++) {
-			inner.append(Integer.toBinaryString(data[i] & 0xFF));
+	/**
+	 * Appends the lowest count bits (at most 64) of a value. The capacity must
+	 * have been ensured by the caller.
+	 *
+	 * @param value
+	 *            the bits, right-aligned
+	 * @param count
+	 *            the number of bits
+	 */
+	void appendBits(final long value, final int count) {
+		if (count == 0)
+			return;
+		long bits = value << (64 - count);
+		int word = length >>> 6;
+		int offset = length & 63;
+		words[word] |= bits >>> offset;
+		if (offset + count > 64)
+			words[word + 1] = bits << (64 - offset);
+		length += count;
+	}
+
+	/**
+	 * Grows the word array so it can hold at least the given number of bits.
+	 *
+	 * @param bits
+	 *            the required capacity in bits
+	 */
+	void ensureCapacity(final long bits) {
+		if (bits > Integer.MAX_VALUE)
+			throw new OutOfMemoryError("Bit string too large!");
+		int required = wordCount((int) bits);
+		if (required > words.length) {
+			words = Arrays.copyOf(words, Math.min(
+					Math.max(required, words.length * 2),
+					wordCount(Integer.MAX_VALUE)));
+			if (Metrics.ENABLED)
+				Metrics.bufferGrown(words.length * 64L);
+		}
+	}
+
+	/**
+	 * Writes the bits in the string form of earlier versions, so streams stay
+	 * compatible in both directions and the spare capacity is not written.
+	 *
+	 * @param out
+	 *            the stream
+	 * @throws IOException
+	 *             if the stream throws
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("bits", toString());
+		out.writeFields();
+	}
+
+	/**
+	 * Reads the bits from the string form written by {@link #writeObject}.
+	 *
+	 * @param in
+	 *            the stream
+	 * @throws IOException
+	 *             if the stream throws or the bits are not a bit string
+	 * @throws ClassNotFoundException
+	 *             if a class of the stream is not found
+	 */
+	private void readObject(final ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		String bits = (String) fields.get("bits", null);
+		if (bits == null || (bits.length() > 0 && !isBitString(bits)))
+			throw new InvalidObjectException("String is not a bit string!");
+		words = pack(bits);
+		length = bits.length();
+	}
+
+	/**
+	 * Shifts the bits of a word array n positions towards index 0.
+	 *
+	 * @param words
+	 *            the words
+	 * @param count
+	 *            the number of words in use
+	 * @param n
+	 *            the number of positions
+	 */
+	private static void shiftLeft(final long[] words, final int count,
+			final int n) {
+		int wordShift = n >>> 6;
+		int bitShift = n & 63;
+		for (int i = 0; i < count; i++) {
+			int src = i + wordShift;
+			long value = (src < count) ? words[src] << bitShift : 0;
+			if (bitShift != 0 && src + 1 < count)
+				value |= words[src + 1] >>> (64 - bitShift);
+			words[i] = value;
+		}
+	}
+
+	/**
+	 * Shifts the bits of a word array n positions away from index 0. Bits
+	 * moved beyond the given length are cleared.
+	 *
+	 * @param words
+	 *            the words
+	 * @param length
+	 *            the number of bits in use
+	 * @param n
+	 *            the number of positions
+	 */
+	private static void shiftRight(final long[] words, final int length,
+			final int n) {
+		int count = wordCount(length);
+		int wordShift = n >>> 6;
+		int bitShift = n & 63;
+		for (int i = count - 1; i >= 0; i--) {
+			int src = i - wordShift;
+			long value = (src >= 0) ? words[src] >>> bitShift : 0;
+			if (bitShift != 0 && src - 1 >= 0)
+				value |= words[src - 1] << (64 - bitShift);
+			words[i] = value;
+		}
+		if ((length & 63) != 0)
+			words[count - 1] &= -1L << (64 - (length & 63));
+	}
 
-			// add padding
-			while (inner.length() < 8) {
-				inner.insert(0, '0');
+	/**
+	 * Returns the index of the first occurrence of a packed pattern, starting
+	 * at the specified index.
+	 *
+	 * @param pattern
+	 *            the packed pattern
+	 * @param count
+	 *            the length of the pattern in bits
+	 * @param fromIndex
+	 *            the index to start from
+	 * @return the index, or -1 if the pattern is not found
+	 */
+	private int indexOf(final long[] pattern, final int count,
+			final int fromIndex) {
+		if (count == 0)
+			return fromIndex <= length ? fromIndex : -1;
+		int first = Math.min(64, count);
+		long head = pattern[0] >>> (64 - first);
+		for (int i = fromIndex; i <= length - count; i++) {
+			if (getBits(i, first) != head)
+				continue;
+			int j = first;
+			while (j < count) {
+				int n = Math.min(64, count - j);
+				if (getBits(i + j, n) != pattern[j >>> 6] >>> (64 - n))
+					break;
+				j += n;
 			}
-			builder.append(inner.toString());
-			inner.setLength(0);
+			if (j >= count)
+				return i;
 		}
-		return builder.toString();
+		return -1;
+	}
+
+	/**
+	 * Returns the number of start positions a search has examined.
+	 *
+	 * @param index
+	 *            the result of the search
+	 * @param count
+	 *            the length of the pattern
+	 * @param fromIndex
+	 *            the index the search started from
+	 * @return the number of positions
+	 */
+	private long scanned(final int index, final int count, final int fromIndex) {
+		int end = (index == -1) ? length - count + 1 : index + 1;
+		return Math.max(0, end - fromIndex);
+	}
+
+	/**
+	 * Returns the number of words needed to hold the given number of bits.
+	 *
+	 * @param bits
+	 *            the number of bits
+	 * @return the number of words
+	 */
+	static int wordCount(final int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	/**
+	 * Checks whether a string only consists of the characters '0' and '1'.
+	 *
+	 * @param data
+	 *            the string
+	 * @return true, if the string is a non-empty bit string
+	 */
+	private static boolean isBitString(final String data) {
+		if (data.isEmpty())
+			return false;
+		for (int i = 0; i < data.length(); i++) {
+			char c = data.charAt(i);
+			if (c != '0' && c != '1')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Packs a string of '0' and '1' characters into words, without padding.
+	 *
+	 * @param data
+	 *            the bit string
+	 * @return the packed words
+	 */
+	private static long[] pack(final String data) {
+		long[] result = new long[wordCount(data.length())];
+		for (int i = 0; i < data.length(); i++) {
+			if (data.charAt(i) == '1')
+				result[i >>> 6] |= 1L << (63 - (i & 63));
+		}
+		return result;
 	}
 
 	/**
@@ -387,16 +1354,14 @@ public class BitString implements Serializable {
 	}
 
 	/**
-	 * Adds padding to the string so it corresponds to a byte (8-bit) sequence.
+	 * Returns the length of a bit sequence after padding it to a byte (8-bit)
+	 * sequence.
 	 *
-	 * @param binary
-	 *            bit sequence to add padding to
-	 * @return the string with padding
+	 * @param count
+	 *            the number of bits
+	 * @return the padded length
 	 */
-	private String pad(final String binary) {
-		StringBuilder b = new StringBuilder(binary);
-		while (b.length() % 8 != 0)
-			b.insert(0, '0');
-		return b.toString();
+	private static int padded(final int count) {
+		return (count + 7) & ~7;
 	}
 }
@@ -0,0 +1,307 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A BitWriter collects single bits and bit fields of arbitrary width and packs
+ * them into bytes. It is the write-side counterpart of {@link BitStream}: bits
+ * are written in the {@link BitOrder} of the writer, most significant bit
+ * first unless {@link #bitOrder(BitOrder)} is set, and the last byte is padded
+ * with zeros when the result is converted.
+ *
+ * @author Dbof
+ */
+public class BitWriter {
+	/** The default buffer size in bytes. */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** The packed data. */
+	private byte[] buffer;
+
+	/** The number of bits written. */
+	private long length = 0;
+
+	/** The bit order. */
+	private BitOrder bitOrder = BitOrder.MSB_FIRST;
+
+	/** True, if multi-byte values are written big-endian. */
+	private boolean bigEndian = true;
+
+	/**
+	 * Instantiates a new bit writer.
+	 */
+	public BitWriter() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new bit writer with an initial capacity.
+	 *
+	 * @param capacity
+	 *            the initial capacity in bytes
+	 */
+	public BitWriter(final int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity must not be negative!");
+		buffer = new byte[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Returns the bit order of this writer.
+	 *
+	 * @return the bit order
+	 */
+	public BitOrder bitOrder() {
+		return bitOrder;
+	}
+
+	/**
+	 * Sets the bit order of this writer. The bit order defines in which order
+	 * the bits of a byte are filled and how the bits of a value are emitted.
+	 *
+	 * @param order
+	 *            the new bit order
+	 * @return this writer
+	 */
+	public BitWriter bitOrder(final BitOrder order) {
+		if (order == null)
+			throw new NullPointerException();
+		bitOrder = order;
+		return this;
+	}
+
+	/**
+	 * Returns the byte order used for short, integer and long values.
+	 *
+	 * @return the byte order
+	 */
+	public ByteOrder order() {
+		return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+	}
+
+	/**
+	 * Sets the byte order used for short, integer and long values.
+	 *
+	 * @param order
+	 *            the new byte order
+	 * @return this writer
+	 */
+	public BitWriter order(final ByteOrder order) {
+		if (order == null)
+			throw new NullPointerException();
+		bigEndian = order == ByteOrder.BIG_ENDIAN;
+		return this;
+	}
+
+	/**
+	 * Writes a single bit.
+	 *
+	 * @param value
+	 *            the bit to write
+	 */
+	public void writeBoolean(final boolean value) {
+		ensureCapacity(length + 1);
+		if (value)
+			buffer[(int) (length >>> 3)] |= mask(length);
+		length++;
+		if (Metrics.ENABLED)
+			Metrics.bitsWritten(1);
+	}
+
+	/**
+	 * Writes the lowest count bits of a value in the bit order of this
+	 * writer.
+	 *
+	 * @param value
+	 *            the value
+	 * @param count
+	 *            the number of bits to write (0 to 64)
+	 */
+	public void write(final long value, final int count) {
+		if (count < 0 || count > 64)
+			throw new IllegalArgumentException("Bit count must be between 0 and 64!");
+		ensureCapacity(length + count);
+
+		int remaining = count;
+		while (remaining > 0) {
+			int index = (int) (length >>> 3);
+			int used = (int) (length & 7);
+			int n = Math.min(8 - used, remaining);
+			if (bitOrder == BitOrder.MSB_FIRST) {
+				int chunk = (int) (value >>> (remaining - n)) & ((1 << n) - 1);
+				buffer[index] |= chunk << (8 - used - n);
+			} else {
+				int chunk = (int) (value >>> (count - remaining)) & ((1 << n) - 1);
+				buffer[index] |= chunk << used;
+			}
+			length += n;
+			remaining -= n;
+		}
+		if (Metrics.ENABLED)
+			Metrics.bitsWritten(count);
+	}
+
+	/**
+	 * Writes a short value in the byte order of this writer.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void writeShort(final short value) {
+		write(swapBytes() ? Short.reverseBytes(value) : value, 16);
+	}
+
+	/**
+	 * Writes an integer in the byte order of this writer.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void writeInteger(final int value) {
+		write(swapBytes() ? Integer.reverseBytes(value) : value, 32);
+	}
+
+	/**
+	 * Writes a long value in the byte order of this writer.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void writeLong(final long value) {
+		write(swapBytes() ? Long.reverseBytes(value) : value, 64);
+	}
+
+	/**
+	 * Writes all bits of a bit string.
+	 *
+	 * @param data
+	 *            the bit string
+	 */
+	public void write(final BitString data) {
+		write(data, 0, data.length());
+	}
+
+	/**
+	 * Writes a range of bits of a bit string.
+	 *
+	 * @param data
+	 *            the bit string
+	 * @param beginIndex
+	 *            the index of the first bit, inclusive
+	 * @param endIndex
+	 *            the index of the last bit, exclusive
+	 */
+	void write(final BitString data, final int beginIndex, final int endIndex) {
+		for (int i = beginIndex; i < endIndex; i += 64) {
+			int n = Math.min(64, endIndex - i);
+			long bits = data.getBits(i, n);
+			// keep the bits in stream order
+			if (bitOrder == BitOrder.LSB_FIRST)
+				bits = Long.reverse(bits) >>> (64 - n);
+			write(bits, n);
+		}
+	}
+
+	/**
+	 * Returns the number of bits written so far.
+	 *
+	 * @return the length in bits
+	 */
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * Discards all written bits but keeps the allocated buffer.
+	 */
+	public void clear() {
+		Arrays.fill(buffer, 0, (int) ((length + 7) >>> 3), (byte) 0);
+		length = 0;
+	}
+
+	/**
+	 * Returns the written bits as byte array. The last byte is padded with
+	 * zeros if the length is not a multiple of 8.
+	 *
+	 * @return the byte array
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, (int) ((length + 7) >>> 3));
+	}
+
+	/**
+	 * Returns the written bits as bit string. The last byte is padded with
+	 * zeros if the length is not a multiple of 8.
+	 *
+	 * @return the bit string
+	 */
+	public BitString toBitString() {
+		return new BitString(toByteArray());
+	}
+
+	/**
+	 * Returns the mask of a bit within its byte.
+	 *
+	 * @param index
+	 *            the bit index
+	 * @return the mask
+	 */
+	private int mask(final long index) {
+		int bit = (int) (index & 7);
+		return (bitOrder == BitOrder.MSB_FIRST) ? 0x80 >>> bit : 1 << bit;
+	}
+
+	/**
+	 * Checks whether multi-byte values have to be byte swapped. Values
+	 * written {@link BitOrder#MSB_FIRST} are big-endian, values written
+	 * {@link BitOrder#LSB_FIRST} are little-endian.
+	 *
+	 * @return true, if the byte order differs from the natural order
+	 */
+	private boolean swapBytes() {
+		return (bitOrder == BitOrder.MSB_FIRST) != bigEndian;
+	}
+
+	/**
+	 * Grows the buffer so it can hold at least the given number of bits.
+	 *
+	 * @param bits
+	 *            the required capacity in bits
+	 */
+	private void ensureCapacity(final long bits) {
+		long required = (bits + 7) >>> 3;
+		if (required > buffer.length) {
+			if (required > Integer.MAX_VALUE - 8)
+				throw new OutOfMemoryError("Bit writer too large!");
+			long grown = Math.max(required, (long) buffer.length << 1);
+			buffer = Arrays.copyOf(buffer,
+					(int) Math.min(grown, Integer.MAX_VALUE - 8));
+			if (Metrics.ENABLED)
+				Metrics.bufferGrown(buffer.length * 8L);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+/**
+ * A blocked Bloom filter keeps all bit positions of a key within one block of
+ * 512 bits, the size of a typical cache line, so every add and lookup touches
+ * a single cache line. It needs slightly more bits than a {@link BloomFilter}
+ * for the same false positive probability, in exchange for much faster
+ * operations on large filters.
+ * <p>
+ * The high 32 bits of the key hash select the block; the low 32 bits
+ * generate the positions within the block by double hashing.
+ *
+ * @author Dbof
+ */
+public class BlockedBloomFilter extends BloomFilter {
+	/** The number of bits per block. */
+	static final int BLOCK_BITS = 512;
+
+	/**
+	 * Instantiates a new, empty blocked Bloom filter.
+	 *
+	 * @param size
+	 *            the number of bits, rounded up to whole blocks of 512 bits
+	 * @param hashes
+	 *            the number of bit positions per key
+	 */
+	public BlockedBloomFilter(final int size, final int hashes) {
+		super(zeros(size, BLOCK_BITS), hashes);
+	}
+
+	/**
+	 * Instantiates a blocked Bloom filter over existing bits.
+	 *
+	 * @param bits
+	 *            the bits, which are used directly
+	 * @param hashes
+	 *            the number of bit positions per key
+	 */
+	private BlockedBloomFilter(final BitString bits, final int hashes) {
+		super(bits, hashes);
+		if (bits.length() % BLOCK_BITS != 0)
+			throw new IllegalArgumentException("Size must be a multiple of "
+					+ BLOCK_BITS + " bits!");
+	}
+
+	/**
+	 * Creates a blocked Bloom filter sized for an expected number of keys and
+	 * a false positive probability. The size is computed as for a
+	 * {@link BloomFilter}, so the actual probability is slightly higher.
+	 *
+	 * @param expectedKeys
+	 *            the expected number of keys
+	 * @param fpp
+	 *            the desired false positive probability (between 0 and 1)
+	 * @return the blocked Bloom filter
+	 */
+	public static BlockedBloomFilter create(final long expectedKeys,
+			final double fpp) {
+		int size = optimalSize(expectedKeys, fpp);
+		return new BlockedBloomFilter(size, optimalHashes(expectedKeys, size));
+	}
+
+	/**
+	 * Restores a blocked Bloom filter from the bytes returned by
+	 * {@link #toByteArray()}.
+	 *
+	 * @param data
+	 *            the bytes, a multiple of 64
+	 * @param hashes
+	 *            the number of bit positions per key
+	 * @return the blocked Bloom filter
+	 */
+	public static BlockedBloomFilter fromByteArray(final byte[] data,
+			final int hashes) {
+		return new BlockedBloomFilter(new BitString(data), hashes);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BloomFilter#insert(long)
+	 */
+	@Override
+	void insert(final long hash) {
+		long[] words = bits.words;
+		int base = reduce((int) (hash >>> 32), bits.length() / BLOCK_BITS)
+				* BLOCK_BITS;
+		int h1 = (int) hash;
+		int h2 = (h1 >>> 9) | 1;
+		for (int i = 0; i < hashes; i++) {
+			int index = base + ((h1 + i * h2) & (BLOCK_BITS - 1));
+			words[index >>> 6] |= 1L << (63 - (index & 63));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BloomFilter#test(long)
+	 */
+	@Override
+	boolean test(final long hash) {
+		long[] words = bits.words;
+		int base = reduce((int) (hash >>> 32), bits.length() / BLOCK_BITS)
+				* BLOCK_BITS;
+		int h1 = (int) hash;
+		int h2 = (h1 >>> 9) | 1;
+		for (int i = 0; i < hashes; i++) {
+			int index = base + ((h1 + i * h2) & (BLOCK_BITS - 1));
+			if ((words[index >>> 6] & (1L << (63 - (index & 63)))) == 0)
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,383 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+/**
+ * A Bloom filter: a set of bits that answers whether a key might have been
+ * added, with a tunable rate of false positives and no false negatives. The
+ * k bit positions of a key are derived from one 64-bit hash by double
+ * hashing.
+ * <p>
+ * Keys are either bit strings, hashed with {@link BitString#fingerprint()},
+ * or long values such as ids or precomputed hashes. The bits are kept in a
+ * {@link BitString}, so {@link #toByteArray()} has the same layout as
+ * {@link BitString#toByteArray()}.
+ *
+ * @author Dbof
+ */
+public class BloomFilter {
+	/** The bits of the filter. */
+	protected final BitString bits;
+
+	/** The number of bit positions per key. */
+	protected final int hashes;
+
+	/**
+	 * Instantiates a new, empty Bloom filter.
+	 *
+	 * @param size
+	 *            the number of bits, rounded up to whole bytes
+	 * @param hashes
+	 *            the number of bit positions per key
+	 */
+	public BloomFilter(final int size, final int hashes) {
+		this(zeros(size, 8), hashes);
+	}
+
+	/**
+	 * Instantiates a Bloom filter over existing bits.
+	 *
+	 * @param bits
+	 *            the bits, which are used directly
+	 * @param hashes
+	 *            the number of bit positions per key
+	 */
+	BloomFilter(final BitString bits, final int hashes) {
+		if (bits.length() == 0)
+			throw new IllegalArgumentException("Size must be positive!");
+		if (hashes <= 0)
+			throw new IllegalArgumentException("Hash count must be positive!");
+		this.bits = bits;
+		this.hashes = hashes;
+	}
+
+	/**
+	 * Creates a Bloom filter sized for an expected number of keys and a false
+	 * positive probability.
+	 *
+	 * @param expectedKeys
+	 *            the expected number of keys
+	 * @param fpp
+	 *            the desired false positive probability (between 0 and 1)
+	 * @return the Bloom filter
+	 */
+	public static BloomFilter create(final long expectedKeys, final double fpp) {
+		int size = optimalSize(expectedKeys, fpp);
+		return new BloomFilter(size, optimalHashes(expectedKeys, size));
+	}
+
+	/**
+	 * Restores a Bloom filter from the bytes returned by
+	 * {@link #toByteArray()}.
+	 *
+	 * @param data
+	 *            the bytes
+	 * @param hashes
+	 *            the number of bit positions per key
+	 * @return the Bloom filter
+	 */
+	public static BloomFilter fromByteArray(final byte[] data,
+			final int hashes) {
+		return new BloomFilter(new BitString(data), hashes);
+	}
+
+	/**
+	 * Adds a bit string key.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	public void add(final BitString key) {
+		insert(key.fingerprint());
+	}
+
+	/**
+	 * Adds a long key.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	public void add(final long key) {
+		insert(mix(key));
+	}
+
+	/**
+	 * Adds all bit string keys.
+	 *
+	 * @param keys
+	 *            the keys
+	 */
+	public void addAll(final Iterable<? extends BitString> keys) {
+		for (BitString key : keys)
+			insert(key.fingerprint());
+	}
+
+	/**
+	 * Adds all long keys.
+	 *
+	 * @param keys
+	 *            the keys
+	 */
+	public void addAll(final long... keys) {
+		for (long key : keys)
+			insert(mix(key));
+	}
+
+	/**
+	 * Checks whether a bit string key might have been added.
+	 *
+	 * @param key
+	 *            the key
+	 * @return false if the key has definitely not been added
+	 */
+	public boolean mightContain(final BitString key) {
+		return test(key.fingerprint());
+	}
+
+	/**
+	 * Checks whether a long key might have been added.
+	 *
+	 * @param key
+	 *            the key
+	 * @return false if the key has definitely not been added
+	 */
+	public boolean mightContain(final long key) {
+		return test(mix(key));
+	}
+
+	/**
+	 * Checks whether all bit string keys might have been added.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @return false if at least one key has definitely not been added
+	 */
+	public boolean mightContainAll(final Iterable<? extends BitString> keys) {
+		for (BitString key : keys)
+			if (!test(key.fingerprint()))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Checks whether all long keys might have been added.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @return false if at least one key has definitely not been added
+	 */
+	public boolean mightContainAll(final long... keys) {
+		for (long key : keys)
+			if (!test(mix(key)))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Adds all keys of another filter of the same kind, size and hash count
+	 * by combining the bits with OR.
+	 *
+	 * @param other
+	 *            the other filter
+	 * @throws IllegalArgumentException
+	 *             if the filters are not compatible
+	 */
+	public void union(final BloomFilter other) {
+		if (other.getClass() != getClass()
+				|| other.bits.length() != bits.length()
+				|| other.hashes != hashes)
+			throw new IllegalArgumentException("Filters are not compatible!");
+		long[] words = bits.words;
+		long[] theirs = other.bits.words;
+		for (int i = 0; i < BitString.wordCount(bits.length()); i++)
+			words[i] |= theirs[i];
+	}
+
+	/**
+	 * Returns the number of bits.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return bits.length();
+	}
+
+	/**
+	 * Returns the number of bit positions per key.
+	 *
+	 * @return the hash count
+	 */
+	public int hashCount() {
+		return hashes;
+	}
+
+	/**
+	 * Estimates the current false positive probability from the fraction of
+	 * bits set.
+	 *
+	 * @return the probability
+	 */
+	public double expectedFpp() {
+		return Math.pow((double) bits.cardinality() / bits.length(), hashes);
+	}
+
+	/**
+	 * Returns the bits of this filter in the layout of
+	 * {@link BitString#toByteArray()}.
+	 *
+	 * @return the byte array
+	 */
+	public byte[] toByteArray() {
+		return bits.toByteArray();
+	}
+
+	/**
+	 * Returns a copy of the bits of this filter.
+	 *
+	 * @return the bit string
+	 */
+	public BitString toBitString() {
+		return new BitString(bits);
+	}
+
+	/**
+	 * Sets the bit positions of a hash.
+	 *
+	 * @param hash
+	 *            the 64-bit hash of a key
+	 */
+	void insert(final long hash) {
+		long[] words = bits.words;
+		int size = bits.length();
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < hashes; i++) {
+			int index = reduce(h1 + i * h2, size);
+			words[index >>> 6] |= 1L << (63 - (index & 63));
+		}
+	}
+
+	/**
+	 * Checks the bit positions of a hash.
+	 *
+	 * @param hash
+	 *            the 64-bit hash of a key
+	 * @return true, if all positions are set
+	 */
+	boolean test(final long hash) {
+		long[] words = bits.words;
+		int size = bits.length();
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < hashes; i++) {
+			int index = reduce(h1 + i * h2, size);
+			if ((words[index >>> 6] & (1L << (63 - (index & 63)))) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Maps a 32-bit hash uniformly to 0..range-1 with a multiplication
+	 * instead of a division.
+	 *
+	 * @param hash
+	 *            the hash
+	 * @param range
+	 *            the range
+	 * @return the index
+	 */
+	static int reduce(final int hash, final int range) {
+		return (int) (((hash & 0xFFFFFFFFL) * range) >>> 32);
+	}
+
+	/**
+	 * Spreads the bits of a long key (the SplitMix64 finalizer).
+	 *
+	 * @param key
+	 *            the key
+	 * @return the hash
+	 */
+	static long mix(final long key) {
+		long z = key + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns a bit string of zeros, rounded up to a multiple of a unit.
+	 *
+	 * @param size
+	 *            the number of bits
+	 * @param unit
+	 *            the unit in bits
+	 * @return the bit string
+	 */
+	static BitString zeros(final int size, final int unit) {
+		if (size <= 0)
+			throw new IllegalArgumentException("Size must be positive!");
+		long rounded = (size + unit - 1L) / unit * unit;
+		BitString result = new BitString();
+		result.ensureCapacity(rounded);
+		result.length = (int) rounded;
+		return result;
+	}
+
+	/**
+	 * Returns the number of bits for a number of keys and a false positive
+	 * probability.
+	 *
+	 * @param keys
+	 *            the expected number of keys
+	 * @param fpp
+	 *            the false positive probability
+	 * @return the number of bits
+	 */
+	static int optimalSize(final long keys, final double fpp) {
+		if (keys <= 0)
+			throw new IllegalArgumentException("Key count must be positive!");
+		if (!(fpp > 0 && fpp < 1))
+			throw new IllegalArgumentException(
+					"Probability must be between 0 and 1!");
+		double size = -keys * Math.log(fpp) / (Math.log(2) * Math.log(2));
+		if (size > Integer.MAX_VALUE - 1024)
+			throw new IllegalArgumentException("Filter too large!");
+		return (int) Math.ceil(size);
+	}
+
+	/**
+	 * Returns the number of bit positions per key that minimizes the false
+	 * positive probability.
+	 *
+	 * @param keys
+	 *            the expected number of keys
+	 * @param size
+	 *            the number of bits
+	 * @return the hash count
+	 */
+	static int optimalHashes(final long keys, final int size) {
+		return Math.max(1, (int) Math.round((double) size / keys * Math.log(2)));
+	}
+}
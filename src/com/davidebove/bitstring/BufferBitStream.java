@@ -0,0 +1,215 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bit stream over the bytes of a buffer, read in place. Reads, searches and
+ * single-bit access go to the buffer directly, and other reading operations
+ * work on a temporary copy of the words. Only operations that change the
+ * words or the length move the bits into the word array and drop the buffer.
+ *
+ * @author Dbof
+ */
+final class BufferBitStream extends BitStream {
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 6411578102557165316L;
+
+	/** The bytes, starting at index 0, or null once moved to the heap. */
+	private transient ByteBuffer buffer;
+
+	/**
+	 * Instantiates a new bit stream over the remaining bytes of a buffer.
+	 *
+	 * @param data
+	 *            the buffer
+	 */
+	BufferBitStream(final ByteBuffer data) {
+		if (data.remaining() > Integer.MAX_VALUE / 8)
+			throw new OutOfMemoryError("Bit string too large!");
+		// a slice is big-endian and starts at the current position
+		buffer = data.slice();
+		length = buffer.limit() * 8;
+	}
+
+	/**
+	 * Moves the bits from the buffer into the word array.
+	 */
+	private void load() {
+		if (buffer == null)
+			return;
+		ByteBuffer data = buffer;
+		buffer = null;
+		length = 0;
+		append(data);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#getBits(int, int)
+	 */
+	@Override
+	long getBits(final int index, final int count) {
+		if (buffer == null)
+			return super.getBits(index, count);
+		if (count == 0)
+			return 0;
+		int at = index >>> 3;
+		int offset = index & 7;
+		int limit = buffer.limit();
+		long value = 0;
+		if (at + 8 <= limit) {
+			value = buffer.getLong(at) << offset;
+			if (offset + count > 64 && at + 8 < limit)
+				value |= (buffer.get(at + 8) & 0xFFL) >>> (8 - offset);
+		} else {
+			for (int i = 0; at + i < limit; i++)
+				value |= (buffer.get(at + i) & 0xFFL) << (56 - 8 * i);
+			value <<= offset;
+		}
+		return value >>> (64 - count);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#words()
+	 */
+	@Override
+	long[] words() {
+		if (buffer == null)
+			return words;
+		// a copy, so that reading does not detach this view from the buffer
+		long[] result = new long[wordCount(length)];
+		for (int i = 0; i < result.length; i++)
+			result[i] = getBits(i << 6, 64);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#mutableWords()
+	 */
+	@Override
+	long[] mutableWords() {
+		load();
+		return words;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#ensureCapacity(long)
+	 */
+	@Override
+	void ensureCapacity(final long bits) {
+		load();
+		super.ensureCapacity(bits);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#bitSet(int)
+	 */
+	@Override
+	public boolean bitSet(final int index) {
+		if (buffer == null)
+			return super.bitSet(index);
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException();
+		return (buffer.get(index >>> 3) & (0x80 >>> (index & 7))) != 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#setBit(int, boolean)
+	 */
+	@Override
+	public void setBit(final int index, final boolean value) {
+		if (buffer == null) {
+			super.setBit(index, value);
+			return;
+		}
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException();
+		int at = index >>> 3;
+		int mask = 0x80 >>> (index & 7);
+		byte b = buffer.get(at);
+		buffer.put(at, (byte) (value ? b | mask : b & ~mask));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#cardinality()
+	 */
+	@Override
+	public int cardinality() {
+		if (buffer == null)
+			return super.cardinality();
+		int limit = buffer.limit();
+		int count = 0;
+		int i = 0;
+		for (; i + 8 <= limit; i += 8)
+			count += Long.bitCount(buffer.getLong(i));
+		for (; i < limit; i++)
+			count += Integer.bitCount(buffer.get(i) & 0xFF);
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitString#toByteArray()
+	 */
+	@Override
+	public byte[] toByteArray() {
+		if (buffer == null)
+			return super.toByteArray();
+		byte[] result = new byte[buffer.limit()];
+		buffer.duplicate().get(result);
+		if (Metrics.ENABLED)
+			Metrics.converted(length);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.davidebove.bitstring.BitStream#clear()
+	 */
+	@Override
+	public void clear() {
+		if (buffer != null) {
+			buffer = null;
+			length = 0;
+		}
+		super.clear();
+	}
+}
@@ -0,0 +1,151 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsListener} that sums up all events. The counters can be
+ * read at any time, for example to be exported to a monitoring system.
+ *
+ * @author Dbof
+ */
+public class CountingMetrics implements MetricsListener {
+	private final LongAdder bitsRead = new LongAdder();
+
+	private final LongAdder bitsWritten = new LongAdder();
+
+	private final LongAdder searches = new LongAdder();
+
+	private final LongAdder bitsScanned = new LongAdder();
+
+	private final LongAdder bufferGrowths = new LongAdder();
+
+	private final LongAdder conversions = new LongAdder();
+
+	private final LongAdder bitsConverted = new LongAdder();
+
+	@Override
+	public void bitsRead(final long count) {
+		bitsRead.add(count);
+	}
+
+	@Override
+	public void bitsWritten(final long count) {
+		bitsWritten.add(count);
+	}
+
+	@Override
+	public void searched(final long scanned) {
+		searches.increment();
+		bitsScanned.add(scanned);
+	}
+
+	@Override
+	public void bufferGrown(final long capacity) {
+		bufferGrowths.increment();
+	}
+
+	@Override
+	public void converted(final long count) {
+		conversions.increment();
+		bitsConverted.add(count);
+	}
+
+	/**
+	 * Returns the number of bits read.
+	 *
+	 * @return the number of bits read
+	 */
+	public long getBitsRead() {
+		return bitsRead.sum();
+	}
+
+	/**
+	 * Returns the number of bits written.
+	 *
+	 * @return the number of bits written
+	 */
+	public long getBitsWritten() {
+		return bitsWritten.sum();
+	}
+
+	/**
+	 * Returns the number of searches.
+	 *
+	 * @return the number of searches
+	 */
+	public long getSearches() {
+		return searches.sum();
+	}
+
+	/**
+	 * Returns the number of positions examined by all searches.
+	 *
+	 * @return the number of bits scanned
+	 */
+	public long getBitsScanned() {
+		return bitsScanned.sum();
+	}
+
+	/**
+	 * Returns the number of times a buffer was grown.
+	 *
+	 * @return the number of buffer growths
+	 */
+	public long getBufferGrowths() {
+		return bufferGrowths.sum();
+	}
+
+	/**
+	 * Returns the number of conversions.
+	 *
+	 * @return the number of conversions
+	 */
+	public long getConversions() {
+		return conversions.sum();
+	}
+
+	/**
+	 * Returns the number of bits converted.
+	 *
+	 * @return the number of bits converted
+	 */
+	public long getBitsConverted() {
+		return bitsConverted.sum();
+	}
+
+	/**
+	 * Resets all counters to zero.
+	 */
+	public void reset() {
+		bitsRead.reset();
+		bitsWritten.reset();
+		searches.reset();
+		bitsScanned.reset();
+		bufferGrowths.reset();
+		conversions.reset();
+		bitsConverted.reset();
+	}
+}
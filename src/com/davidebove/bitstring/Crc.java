@@ -0,0 +1,350 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * A generic CRC engine over arbitrary bit ranges of a {@link BitString}. The
+ * algorithm is described by the usual parameters (width, polynomial, initial
+ * value, input and output reflection, final xor), so any CRC of up to 64
+ * bits can be computed. Common algorithms are available as constants.
+ * <p>
+ * long crc = Crc.CRC32.compute(frame, 16, frame.length() - 32);
+ * <p>
+ * Whole bytes are processed eight at a time with slicing-by-8 tables, and the
+ * range does not need to be byte aligned. If the range is byte aligned and the
+ * algorithm is CRC-32 or CRC-32C, the intrinsified implementations of
+ * java.util.zip are used instead.
+ * <p>
+ * With reflected input, every group of 8 bits (counted from the start of the
+ * range) is fed least significant bit first. A trailing group of fewer than 8
+ * bits is fed the same way, as a number of that many bits.
+ *
+ * @author Dbof
+ */
+public class Crc {
+	/** CRC-8 (polynomial 0x07). */
+	public static final Crc CRC8 = new Crc(8, 0x07, 0, false, false, 0);
+
+	/** CRC-16/ARC (polynomial 0x8005, reflected), as used by USB and LHA. */
+	public static final Crc CRC16_ARC = new Crc(16, 0x8005, 0, true, true, 0);
+
+	/** CRC-16/CCITT-FALSE (polynomial 0x1021, initial value 0xFFFF). */
+	public static final Crc CRC16_CCITT = new Crc(16, 0x1021, 0xFFFF, false,
+			false, 0);
+
+	/** CRC-32 (IEEE 802.3, as used by zip and PNG). */
+	public static final Crc CRC32 = new Crc(32, 0x04C11DB7L, 0xFFFFFFFFL, true,
+			true, 0xFFFFFFFFL);
+
+	/** CRC-32C (Castagnoli, as used by iSCSI and ext4). */
+	public static final Crc CRC32C = new Crc(32, 0x1EDC6F41L, 0xFFFFFFFFL,
+			true, true, 0xFFFFFFFFL);
+
+	/** CRC-64/XZ (ECMA-182 polynomial, reflected). */
+	public static final Crc CRC64_XZ = new Crc(64, 0x42F0E1EBA9EA3693L, -1L,
+			true, true, -1L);
+
+	/** The size of the buffer used to feed the java.util.zip checksums. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** The minimum number of bytes for which java.util.zip is used. */
+	private static final int INTRINSIC_THRESHOLD = 64;
+
+	/** java.util.zip.CRC32C, which is only available on Java 9 or later. */
+	private static final Class<?> CRC32C_CLASS = findClass("java.util.zip.CRC32C");
+
+	/** The width in bits. */
+	private final int width;
+
+	/** The polynomial, without the leading 1. */
+	private final long poly;
+
+	/** The initial register value. */
+	private final long init;
+
+	/** True, if the input bits of every byte are reflected. */
+	private final boolean refIn;
+
+	/** True, if the result is reflected. */
+	private final boolean refOut;
+
+	/** The value to xor the result with. */
+	private final long xorOut;
+
+	/** The polynomial, reflected. */
+	private final long reflectedPoly;
+
+	/** The mask for the width. */
+	private final long mask;
+
+	/**
+	 * The slicing tables: table[k][b] is the register contribution of byte b
+	 * followed by k zero bytes. For reflected input the register is kept
+	 * reflected and right-aligned, otherwise it is left-aligned.
+	 */
+	private final long[][] table;
+
+	/**
+	 * Instantiates a new CRC algorithm.
+	 *
+	 * @param width
+	 *            the width in bits (1 to 64)
+	 * @param poly
+	 *            the polynomial, without the leading 1
+	 * @param init
+	 *            the initial register value
+	 * @param refIn
+	 *            true, if the input bits of every byte are reflected
+	 * @param refOut
+	 *            true, if the result is reflected
+	 * @param xorOut
+	 *            the value to xor the result with
+	 */
+	public Crc(final int width, final long poly, final long init,
+			final boolean refIn, final boolean refOut, final long xorOut) {
+		if (width < 1 || width > 64)
+			throw new IllegalArgumentException("Width must be between 1 and 64!");
+		this.width = width;
+		this.mask = -1L >>> (64 - width);
+		this.poly = poly & mask;
+		this.reflectedPoly = reflect(this.poly, width);
+		this.init = init & mask;
+		this.refIn = refIn;
+		this.refOut = refOut;
+		this.xorOut = xorOut & mask;
+
+		table = new long[8][256];
+		for (int b = 0; b < 256; b++) {
+			long crc = refIn ? b : (long) b << 56;
+			for (int i = 0; i < 8; i++)
+				crc = step(crc);
+			table[0][b] = crc;
+		}
+		for (int k = 1; k < 8; k++) {
+			for (int b = 0; b < 256; b++) {
+				long crc = table[k - 1][b];
+				table[k][b] = refIn ? (crc >>> 8) ^ table[0][(int) (crc & 0xFF)]
+						: (crc << 8) ^ table[0][(int) (crc >>> 56)];
+			}
+		}
+	}
+
+	/**
+	 * Computes the CRC of a whole bit string.
+	 *
+	 * @param data
+	 *            the bit string
+	 * @return the CRC
+	 */
+	public long compute(final BitString data) {
+		return compute(data, 0, data.length());
+	}
+
+	/**
+	 * Computes the CRC of a range of a bit string.
+	 *
+	 * @param data
+	 *            the bit string
+	 * @param beginIndex
+	 *            - the beginning index, inclusive.
+	 * @param endIndex
+	 *            - the ending index, exclusive.
+	 * @return the CRC
+	 */
+	public long compute(final BitString data, final int beginIndex,
+			final int endIndex) {
+		if (beginIndex < 0 || endIndex > data.length() || beginIndex > endIndex)
+			throw new IndexOutOfBoundsException();
+
+		int count = endIndex - beginIndex;
+		if ((beginIndex & 7) == 0 && (count & 7) == 0
+				&& count >= INTRINSIC_THRESHOLD * 8) {
+			Checksum checksum = intrinsic();
+			if (checksum != null)
+				return update(checksum, data, beginIndex, endIndex);
+		}
+
+		// the register in its working position
+		long crc = refIn ? reflect(init, width) : init << (64 - width);
+		int i = beginIndex;
+		for (; i + 64 <= endIndex; i += 64) {
+			long x = data.getBits(i, 64);
+			if (refIn) {
+				x = crc ^ Long.reverseBytes(x);
+				crc = table[7][(int) (x & 0xFF)]
+						^ table[6][(int) ((x >>> 8) & 0xFF)]
+						^ table[5][(int) ((x >>> 16) & 0xFF)]
+						^ table[4][(int) ((x >>> 24) & 0xFF)]
+						^ table[3][(int) ((x >>> 32) & 0xFF)]
+						^ table[2][(int) ((x >>> 40) & 0xFF)]
+						^ table[1][(int) ((x >>> 48) & 0xFF)]
+						^ table[0][(int) (x >>> 56)];
+			} else {
+				x = crc ^ x;
+				crc = table[7][(int) (x >>> 56)]
+						^ table[6][(int) ((x >>> 48) & 0xFF)]
+						^ table[5][(int) ((x >>> 40) & 0xFF)]
+						^ table[4][(int) ((x >>> 32) & 0xFF)]
+						^ table[3][(int) ((x >>> 24) & 0xFF)]
+						^ table[2][(int) ((x >>> 16) & 0xFF)]
+						^ table[1][(int) ((x >>> 8) & 0xFF)]
+						^ table[0][(int) (x & 0xFF)];
+			}
+		}
+		for (; i + 8 <= endIndex; i += 8) {
+			int b = (int) data.getBits(i, 8);
+			crc = refIn ? (crc >>> 8) ^ table[0][(int) ((crc ^ b) & 0xFF)]
+					: (crc << 8) ^ table[0][(int) ((crc >>> 56) ^ b)];
+		}
+		// trailing bits
+		int rest = endIndex - i;
+		long bits = data.getBits(i, rest);
+		for (int j = 0; j < rest; j++) {
+			long bit = refIn ? (bits >>> j) & 1 : (bits >>> (rest - 1 - j)) & 1;
+			crc = step(crc ^ (refIn ? bit : bit << 63));
+		}
+
+		long result = refIn ? crc : crc >>> (64 - width);
+		if (refIn != refOut)
+			result = reflect(result, width);
+		return (result ^ xorOut) & mask;
+	}
+
+	/**
+	 * Returns the width of this CRC.
+	 *
+	 * @return the width in bits
+	 */
+	public int width() {
+		return width;
+	}
+
+	/**
+	 * Advances the register by one bit.
+	 *
+	 * @param crc
+	 *            the register in its working position
+	 * @return the new register
+	 */
+	private long step(final long crc) {
+		if (refIn)
+			return (crc & 1) != 0 ? (crc >>> 1) ^ reflectedPoly : crc >>> 1;
+		return crc < 0 ? (crc << 1) ^ (poly << (64 - width)) : crc << 1;
+	}
+
+	/**
+	 * Returns a java.util.zip implementation of this algorithm, if there is
+	 * one.
+	 *
+	 * @return the checksum, or null
+	 */
+	private Checksum intrinsic() {
+		if (sameAs(CRC32))
+			return new CRC32();
+		if (sameAs(CRC32C) && CRC32C_CLASS != null) {
+			try {
+				return (Checksum) CRC32C_CLASS.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Feeds a byte aligned range to a checksum.
+	 *
+	 * @param checksum
+	 *            the checksum
+	 * @param data
+	 *            the bit string
+	 * @param beginIndex
+	 *            the beginning index, a multiple of 8
+	 * @param endIndex
+	 *            the ending index, a multiple of 8
+	 * @return the checksum value
+	 */
+	private static long update(final Checksum checksum, final BitString data,
+			final int beginIndex, final int endIndex) {
+		byte[] buffer = new byte[Math.min(BUFFER_SIZE, (endIndex - beginIndex) >>> 3)];
+		int i = beginIndex;
+		while (i < endIndex) {
+			int n = Math.min(buffer.length, (endIndex - i) >>> 3);
+			int j = 0;
+			for (; j + 8 <= n; j += 8, i += 64) {
+				long word = data.getBits(i, 64);
+				for (int k = 0; k < 8; k++)
+					buffer[j + k] = (byte) (word >>> (56 - 8 * k));
+			}
+			for (; j < n; j++, i += 8)
+				buffer[j] = (byte) data.getBits(i, 8);
+			checksum.update(buffer, 0, n);
+		}
+		return checksum.getValue();
+	}
+
+	/**
+	 * Checks whether this algorithm has the same parameters as another.
+	 *
+	 * @param other
+	 *            the other algorithm
+	 * @return true, if the parameters are equal
+	 */
+	private boolean sameAs(final Crc other) {
+		return other != null && width == other.width && poly == other.poly
+				&& init == other.init && refIn == other.refIn
+				&& refOut == other.refOut && xorOut == other.xorOut;
+	}
+
+	/**
+	 * Reverses the lowest bits of a value.
+	 *
+	 * @param value
+	 *            the value
+	 * @param bits
+	 *            the number of bits
+	 * @return the reflected value
+	 */
+	private static long reflect(final long value, final int bits) {
+		return Long.reverse(value) >>> (64 - bits);
+	}
+
+	/**
+	 * Loads a class if it exists.
+	 *
+	 * @param name
+	 *            the class name
+	 * @return the class, or null
+	 */
+	private static Class<?> findClass(final String name) {
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,380 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A FrameReader splits a bit stream into frames that start with a sync word.
+ * It scans for the sync word in place, from the current position, and skips
+ * any bits in between, so it resynchronizes after corrupt data without
+ * copying the rest of the input. Frames either have a fixed size or start
+ * with a length prefix that gives the payload size in bytes.
+ * <p>
+ * The input is either a {@link BitStream} in memory, which is read from its
+ * current position with its bit order and byte order, or an
+ * {@link InputStream} that is read in chunks. For an input stream, only the
+ * current frame and one chunk are kept in memory, so unbounded input can be
+ * processed.
+ * <p>
+ * Every frame is returned as a new bit stream of just its payload bits. If a
+ * frame turns out to be corrupt, {@link #reject()} restarts the scan right
+ * after the start of its sync word.
+ *
+ * @author Dbof
+ */
+public class FrameReader implements Iterable<BitStream> {
+	/** The largest number of bits of a length prefix. */
+	public static final int MAX_LENGTH_BITS = 24;
+
+	/** The number of bytes read from an input stream at once. */
+	private static final int CHUNK_SIZE = 8192;
+
+	/** The bits read so far, or the bit stream given. */
+	private final BitStream window;
+
+	/** The input stream, or null if the input is in memory. */
+	private final InputStream in;
+
+	/** The buffer for reading from the input stream. */
+	private final byte[] chunk;
+
+	/** The sync word. */
+	private final BitString sync;
+
+	/** The number of payload bits of a fixed-size frame, or -1. */
+	private final int frameBits;
+
+	/** The number of bits of the length prefix, or 0. */
+	private final int lengthBits;
+
+	/** The index of the sync word of the last frame, or -1. */
+	private int syncStart = -1;
+
+	/** The number of bits skipped while scanning for the sync word. */
+	private long skipped = 0;
+
+	/** True, if the input stream has ended. */
+	private boolean eof = false;
+
+	/**
+	 * Instantiates a new frame reader.
+	 */
+	private FrameReader(final BitStream window, final InputStream in,
+			final BitString sync, final int frameBits, final int lengthBits) {
+		if (sync.length() == 0)
+			throw new IllegalArgumentException("Sync word must not be empty!");
+		this.window = window;
+		this.in = in;
+		this.chunk = (in == null) ? null : new byte[CHUNK_SIZE];
+		this.sync = new BitString(sync);
+		this.frameBits = frameBits;
+		this.lengthBits = lengthBits;
+	}
+
+	/**
+	 * Creates a reader of fixed-size frames from a bit stream.
+	 *
+	 * @param source
+	 *            the bit stream, read from its current position
+	 * @param sync
+	 *            the sync word
+	 * @param frameBits
+	 *            the number of payload bits after the sync word
+	 * @return the frame reader
+	 */
+	public static FrameReader fixed(final BitStream source,
+			final BitString sync, final int frameBits) {
+		return new FrameReader(source, null, sync, checkFrameBits(frameBits),
+				0);
+	}
+
+	/**
+	 * Creates a reader of fixed-size frames from an input stream.
+	 *
+	 * @param source
+	 *            the input stream
+	 * @param sync
+	 *            the sync word
+	 * @param frameBits
+	 *            the number of payload bits after the sync word
+	 * @return the frame reader
+	 */
+	public static FrameReader fixed(final InputStream source,
+			final BitString sync, final int frameBits) {
+		return new FrameReader(new BitStream(), source, sync,
+				checkFrameBits(frameBits), 0);
+	}
+
+	/**
+	 * Creates a reader of length-prefixed frames from a bit stream. The
+	 * prefix follows the sync word and gives the number of payload bytes.
+	 *
+	 * @param source
+	 *            the bit stream, read from its current position
+	 * @param sync
+	 *            the sync word
+	 * @param lengthBits
+	 *            the number of bits of the length prefix (1 to 24)
+	 * @return the frame reader
+	 */
+	public static FrameReader lengthPrefixed(final BitStream source,
+			final BitString sync, final int lengthBits) {
+		return new FrameReader(source, null, sync, -1,
+				checkLengthBits(lengthBits));
+	}
+
+	/**
+	 * Creates a reader of length-prefixed frames from an input stream. The
+	 * prefix follows the sync word and gives the number of payload bytes.
+	 *
+	 * @param source
+	 *            the input stream
+	 * @param sync
+	 *            the sync word
+	 * @param lengthBits
+	 *            the number of bits of the length prefix (1 to 24)
+	 * @return the frame reader
+	 */
+	public static FrameReader lengthPrefixed(final InputStream source,
+			final BitString sync, final int lengthBits) {
+		return new FrameReader(new BitStream(), source, sync, -1,
+				checkLengthBits(lengthBits));
+	}
+
+	/**
+	 * Returns the payload of the next frame. Bits before the next sync word
+	 * are skipped.
+	 *
+	 * @return the payload, or null if there is no complete frame left
+	 * @throws IOException
+	 *             if the input stream throws
+	 */
+	public BitStream nextFrame() throws IOException {
+		syncStart = -1;
+		int start = findSync();
+		if (start < 0)
+			return null;
+		syncStart = start;
+		window.position(start + sync.length());
+
+		int bits = frameBits;
+		if (bits < 0) {
+			if (!ensure(lengthBits))
+				return null;
+			bits = window.readInteger(lengthBits) * 8;
+		}
+		if (!ensure(bits))
+			return null;
+
+		int begin = (int) window.position();
+		BitStream frame = new BitStream();
+		frame.ensureCapacity(bits);
+		for (int i = 0; i < bits; i += 64) {
+			int n = Math.min(64, bits - i);
+			frame.appendBits(window.getBits(begin + i, n), n);
+		}
+		frame.bitOrder(window.bitOrder()).order(window.order());
+		window.position(begin + bits);
+		return frame;
+	}
+
+	/**
+	 * Discards the last frame as corrupt. The next scan for the sync word
+	 * starts one bit after the start of its sync word, so a real frame that
+	 * overlaps the corrupt one is found again.
+	 *
+	 * @throws IllegalStateException
+	 *             if no frame has been returned since the last call
+	 */
+	public void reject() {
+		if (syncStart < 0)
+			throw new IllegalStateException("No frame to reject!");
+		window.position(syncStart + 1);
+		syncStart = -1;
+	}
+
+	/**
+	 * Returns the number of bits skipped while scanning for the sync word.
+	 *
+	 * @return the number of bits
+	 */
+	public long skipped() {
+		return skipped;
+	}
+
+	/**
+	 * Returns an iterator over the remaining frames. I/O errors are thrown as
+	 * {@link UncheckedIOException}.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<BitStream> iterator() {
+		return new Iterator<BitStream>() {
+			private BitStream next;
+
+			@Override
+			public boolean hasNext() {
+				if (next == null) {
+					try {
+						next = nextFrame();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public BitStream next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				BitStream result = next;
+				next = null;
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Returns a spliterator over the remaining frames. Frames are read lazily,
+	 * so memory stays bounded for unbounded input.
+	 *
+	 * @return the spliterator
+	 */
+	@Override
+	public Spliterator<BitStream> spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(),
+				Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Returns a sequential stream of the remaining frames.
+	 *
+	 * @return the stream
+	 */
+	public Stream<BitStream> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Finds the next sync word at or after the current position, reading
+	 * more input as needed. The bits before it are skipped.
+	 *
+	 * @return the index of the sync word, or -1 at the end of the input
+	 * @throws IOException
+	 *             if the input stream throws
+	 */
+	private int findSync() throws IOException {
+		while (true) {
+			int from = (int) window.position();
+			int index = window.find(sync, from);
+			if (index >= 0) {
+				skipped += index - from;
+				return index;
+			}
+			// a sync word may start in the last bits
+			int keep = Math.max(from, window.length() - sync.length() + 1);
+			skipped += keep - from;
+			window.position(keep);
+			if (!fill())
+				return -1;
+		}
+	}
+
+	/**
+	 * Reads input until at least count bits after the current position are
+	 * available.
+	 *
+	 * @param count
+	 *            the number of bits
+	 * @return false, if the input ends before
+	 * @throws IOException
+	 *             if the input stream throws
+	 */
+	private boolean ensure(final int count) throws IOException {
+		while (window.remaining() < count)
+			if (!fill())
+				return false;
+		return true;
+	}
+
+	/**
+	 * Reads the next chunk of the input stream, first dropping the bits that
+	 * are no longer needed.
+	 *
+	 * @return false, if there is no more input
+	 * @throws IOException
+	 *             if the input stream throws
+	 */
+	private boolean fill() throws IOException {
+		if (in == null || eof)
+			return false;
+		int position = (int) window.position();
+		int drop = (syncStart >= 0) ? Math.min(syncStart, position) : position;
+		// dropping moves the remaining bits, so only drop large prefixes
+		if (drop > 0 && drop >= window.length() / 2) {
+			window.shiftLeft(drop);
+			window.length -= drop;
+			window.position(position - drop);
+			if (syncStart >= 0)
+				syncStart -= drop;
+		}
+		int n = in.read(chunk);
+		if (n < 0) {
+			eof = true;
+			return false;
+		}
+		window.append(chunk, 0, n);
+		return true;
+	}
+
+	/**
+	 * Checks the number of payload bits of a fixed-size frame.
+	 */
+	private static int checkFrameBits(final int frameBits) {
+		if (frameBits < 0)
+			throw new IllegalArgumentException("Frame size must not be negative!");
+		return frameBits;
+	}
+
+	/**
+	 * Checks the number of bits of a length prefix.
+	 */
+	private static int checkLengthBits(final int lengthBits) {
+		if (lengthBits < 1 || lengthBits > MAX_LENGTH_BITS)
+			throw new IllegalArgumentException("Length prefix must have 1 to "
+					+ MAX_LENGTH_BITS + " bits!");
+		return lengthBits;
+	}
+}
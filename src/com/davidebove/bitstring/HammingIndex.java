@@ -0,0 +1,436 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of fixed-length fingerprints (for example SimHash or perceptual
+ * hashes) that answers "all fingerprints within Hamming distance d" queries
+ * without comparing the query to every entry.
+ * <p>
+ * The index uses multi-index hashing: every fingerprint is split into m
+ * chunks, and one sorted table per chunk maps chunk values to entries. If two
+ * fingerprints differ in at most d bits, at least one of their chunks differs
+ * in at most d / m bits, so a query only probes the chunk values close to its
+ * own chunks and verifies the few candidates with a full comparison.
+ * <p>
+ * Entries are identified by the order in which they were added. The chunk
+ * tables are updated lazily by the first query after an add: the k new
+ * entries are sorted in O(k log k) and merged into every table in O(n), so
+ * adding entries in batches between queries is cheapest. Chunk values are
+ * stored in 16, 32 or 64 bits, whichever is the narrowest that fits.
+ * <p>
+ * Because queries update the tables, an index is not thread-safe: threads
+ * that share one must synchronize all calls externally.
+ *
+ * @author Dbof
+ */
+public class HammingIndex {
+	/** The default chunk size in bits. */
+	private static final int DEFAULT_CHUNK_BITS = 16;
+
+	/** The length of the fingerprints in bits. */
+	private final int length;
+
+	/** The number of words per fingerprint. */
+	private final int stride;
+
+	/** The number of chunks. */
+	private final int chunks;
+
+	/** The start of every chunk, followed by the length. */
+	private final int[] bounds;
+
+	/** The packed fingerprints. */
+	private long[] data = new long[0];
+
+	/** The number of fingerprints. */
+	private int size = 0;
+
+	/** The sorted table of every chunk. */
+	private final Table[] tables;
+
+	/** The number of entries in the chunk tables. */
+	private int indexed = 0;
+
+	/**
+	 * Instantiates a new index with chunks of about 16 bits.
+	 *
+	 * @param length
+	 *            the length of the fingerprints in bits
+	 */
+	public HammingIndex(final int length) {
+		this(length, Math.max(1, (length + DEFAULT_CHUNK_BITS - 1)
+				/ DEFAULT_CHUNK_BITS));
+	}
+
+	/**
+	 * Instantiates a new index.
+	 *
+	 * @param length
+	 *            the length of the fingerprints in bits
+	 * @param chunks
+	 *            the number of chunks; each chunk may be at most 64 bits long.
+	 *            More chunks make queries with a large distance cheaper but use
+	 *            more memory.
+	 */
+	public HammingIndex(final int length, final int chunks) {
+		if (length <= 0)
+			throw new IllegalArgumentException("Length must be positive!");
+		if (chunks <= 0 || chunks > length
+				|| (length + chunks - 1) / chunks > 64)
+			throw new IllegalArgumentException("Invalid chunk count: " + chunks);
+		this.length = length;
+		this.stride = BitString.wordCount(length);
+		this.chunks = chunks;
+		bounds = new int[chunks + 1];
+		for (int i = 0; i <= chunks; i++)
+			bounds[i] = (int) ((long) length * i / chunks);
+		tables = new Table[chunks];
+		for (int c = 0; c < chunks; c++)
+			tables[c] = new Table(bounds[c + 1] - bounds[c], 0);
+	}
+
+	/**
+	 * Adds a fingerprint to the index.
+	 *
+	 * @param fingerprint
+	 *            the fingerprint
+	 * @return the id of the new entry
+	 * @throws IllegalArgumentException
+	 *             if the fingerprint has the wrong length
+	 */
+	public int add(final BitString fingerprint) {
+		checkLength(fingerprint);
+		if ((size + 1L) * stride > Integer.MAX_VALUE - 8)
+			throw new OutOfMemoryError("Index too large!");
+		if ((size + 1) * stride > data.length)
+			data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8,
+					Math.max((size + 1L) * stride, data.length * 2L)));
+		System.arraycopy(fingerprint.words(), 0, data, size * stride, stride);
+		return size++;
+	}
+
+	/**
+	 * Returns the fingerprint of an entry.
+	 *
+	 * @param id
+	 *            the id of the entry
+	 * @return a copy of the fingerprint
+	 */
+	public BitString get(final int id) {
+		if (id < 0 || id >= size)
+			throw new IndexOutOfBoundsException();
+		BitString result = new BitString();
+		result.ensureCapacity(length);
+		System.arraycopy(data, id * stride, result.words, 0, stride);
+		result.length = length;
+		return result;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the ids of all entries within a Hamming distance of the query,
+	 * in ascending order.
+	 *
+	 * @param query
+	 *            the query fingerprint
+	 * @param maxDistance
+	 *            the maximum Hamming distance, inclusive
+	 * @return the ids of the matching entries
+	 * @throws IllegalArgumentException
+	 *             if the query has the wrong length
+	 */
+	public List<Integer> query(final BitString query, final int maxDistance) {
+		checkLength(query);
+		List<Integer> result = new ArrayList<>();
+		if (maxDistance < 0)
+			return result;
+		if (maxDistance >= length) {
+			for (int id = 0; id < size; id++)
+				result.add(id);
+			return result;
+		}
+		build();
+
+		// collect the entries that share a close chunk with the query
+		int radius = maxDistance / chunks;
+		Candidates candidates = new Candidates();
+		for (int c = 0; c < chunks; c++) {
+			int bits = bounds[c + 1] - bounds[c];
+			probe(c, query.getBits(bounds[c], bits), bits, radius, 0,
+					candidates);
+		}
+
+		long[] words = query.words();
+		int count = candidates.count;
+		int[] found = candidates.ids;
+		Arrays.sort(found, 0, count);
+		for (int i = 0; i < count; i++) {
+			int id = found[i];
+			if (i > 0 && found[i - 1] == id)
+				continue;
+			if (distance(words, id, maxDistance) <= maxDistance)
+				result.add(id);
+		}
+		return result;
+	}
+
+	/**
+	 * Collects the entries whose chunk value is within a radius of a value,
+	 * by flipping every combination of up to radius bits at or above a bit.
+	 */
+	private void probe(final int chunk, final long value, final int bits,
+			final int radius, final int from, final Candidates candidates) {
+		Table table = tables[chunk];
+		for (int i = table.lowerBound(value, indexed); i < indexed
+				&& table.key(i) == value; i++)
+			candidates.add(table.ids[i]);
+		if (radius > 0) {
+			for (int bit = from; bit < bits; bit++)
+				probe(chunk, value ^ (1L << bit), bits, radius - 1, bit + 1,
+						candidates);
+		}
+	}
+
+	/**
+	 * Merges the entries added since the last build into the chunk tables.
+	 */
+	private void build() {
+		if (indexed == size)
+			return;
+		int added = size - indexed;
+		long[] values = new long[added];
+		int[] order = new int[added];
+		long[] pairs = new long[added];
+		for (int c = 0; c < chunks; c++) {
+			int bits = bounds[c + 1] - bounds[c];
+			for (int i = 0; i < added; i++) {
+				values[i] = chunk(indexed + i, bounds[c], bits);
+				order[i] = indexed + i;
+			}
+			if (bits < 32) {
+				// sort (value, id) pairs packed into one non-negative long
+				for (int i = 0; i < added; i++)
+					pairs[i] = (values[i] << 32) | order[i];
+				Arrays.sort(pairs);
+				for (int i = 0; i < added; i++) {
+					values[i] = pairs[i] >>> 32;
+					order[i] = (int) pairs[i];
+				}
+			} else {
+				sort(values, order, added);
+			}
+			tables[c] = tables[c].merge(indexed, values, order, added);
+		}
+		indexed = size;
+	}
+
+	/**
+	 * Sorts values by unsigned value, moving the ids alongside them, with a
+	 * bottom-up merge sort on the primitive arrays.
+	 */
+	private static void sort(final long[] values, final int[] ids,
+			final int count) {
+		long[] v = values, vTmp = new long[count];
+		int[] d = ids, dTmp = new int[count];
+		for (int width = 1; width < count; width *= 2) {
+			for (int lo = 0; lo < count; lo += 2 * width) {
+				int mid = Math.min(lo + width, count);
+				int hi = Math.min(lo + 2 * width, count);
+				int i = lo, j = mid;
+				for (int k = lo; k < hi; k++) {
+					if (j >= hi || (i < mid
+							&& Long.compareUnsigned(v[i], v[j]) <= 0)) {
+						vTmp[k] = v[i];
+						dTmp[k] = d[i++];
+					} else {
+						vTmp[k] = v[j];
+						dTmp[k] = d[j++];
+					}
+				}
+			}
+			long[] vSwap = v;
+			v = vTmp;
+			vTmp = vSwap;
+			int[] dSwap = d;
+			d = dTmp;
+			dTmp = dSwap;
+		}
+		if (v != values) {
+			System.arraycopy(v, 0, values, 0, count);
+			System.arraycopy(d, 0, ids, 0, count);
+		}
+	}
+
+	/**
+	 * Returns a chunk of a stored fingerprint.
+	 */
+	private long chunk(final int id, final int index, final int bits) {
+		int base = id * stride;
+		int word = index >>> 6;
+		int offset = index & 63;
+		long value = data[base + word] << offset;
+		if (offset != 0 && word + 1 < stride)
+			value |= data[base + word + 1] >>> (64 - offset);
+		return value >>> (64 - bits);
+	}
+
+	/**
+	 * Returns the Hamming distance between the query and an entry, stopping
+	 * early once it exceeds a limit.
+	 */
+	private int distance(final long[] query, final int id, final int limit) {
+		int base = id * stride;
+		int count = 0;
+		for (int i = 0; i < stride && count <= limit; i++)
+			count += Long.bitCount(query[i] ^ data[base + i]);
+		return count;
+	}
+
+	/**
+	 * Checks the length of a fingerprint.
+	 */
+	private void checkLength(final BitString fingerprint) {
+		if (fingerprint.length() != length)
+			throw new IllegalArgumentException("Fingerprint must have "
+					+ length + " bits!");
+	}
+
+	/**
+	 * A growable list of candidate ids.
+	 */
+	private static class Candidates {
+		int[] ids = new int[16];
+		int count = 0;
+
+		void add(final int id) {
+			if (count == ids.length)
+				ids = Arrays.copyOf(ids, count * 2);
+			ids[count++] = id;
+		}
+	}
+
+	/**
+	 * The sorted chunk values of one chunk and the entries in that order. The
+	 * values are stored in the narrowest array that fits the chunk size.
+	 */
+	private static final class Table {
+		/** The chunk size in bits. */
+		private final int bits;
+
+		/** The values of chunks of at most 16 bits, or null. */
+		private final char[] narrow;
+
+		/** The values of chunks of 17 to 32 bits, or null. */
+		private final int[] medium;
+
+		/** The values of chunks of more than 32 bits, or null. */
+		private final long[] wide;
+
+		/** The entries in the order of the chunk values. */
+		private final int[] ids;
+
+		Table(final int bits, final int capacity) {
+			this.bits = bits;
+			narrow = (bits <= 16) ? new char[capacity] : null;
+			medium = (bits > 16 && bits <= 32) ? new int[capacity] : null;
+			wide = (bits > 32) ? new long[capacity] : null;
+			ids = new int[capacity];
+		}
+
+		/**
+		 * Returns the chunk value at an index.
+		 */
+		long key(final int i) {
+			if (narrow != null)
+				return narrow[i];
+			if (medium != null)
+				return medium[i] & 0xFFFFFFFFL;
+			return wide[i];
+		}
+
+		/**
+		 * Sets the chunk value and entry at an index.
+		 */
+		private void set(final int i, final long value, final int id) {
+			if (narrow != null)
+				narrow[i] = (char) value;
+			else if (medium != null)
+				medium[i] = (int) value;
+			else
+				wide[i] = value;
+			ids[i] = id;
+		}
+
+		/**
+		 * Returns the index of the first of count values not less than a
+		 * value, comparing unsigned.
+		 */
+		int lowerBound(final long value, final int count) {
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (Long.compareUnsigned(key(mid), value) < 0)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+
+		/**
+		 * Returns a new table with the first count entries of this one and
+		 * the added entries, which must be sorted, merged in one pass.
+		 */
+		Table merge(final int count, final long[] values, final int[] order,
+				final int added) {
+			Table result = new Table(bits, count + added);
+			int i = 0, j = 0;
+			for (int k = 0; k < count + added; k++) {
+				if (j >= added || (i < count
+						&& Long.compareUnsigned(key(i), values[j]) <= 0)) {
+					result.set(k, key(i), ids[i]);
+					i++;
+				} else {
+					result.set(k, values[j], order[j]);
+					j++;
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+/**
+ * The entry point for the optional hot-path metrics. Metrics are only
+ * collected if the system property {@value #PROPERTY} is set to true when
+ * this class is loaded:
+ * <p>
+ * java -Dcom.davidebove.bitstring.metrics=true ...
+ * <p>
+ * Otherwise {@link #ENABLED} is a false constant and the JIT compiler removes
+ * every call site, so disabled metrics cost nothing.
+ *
+ * @author Dbof
+ */
+public final class Metrics {
+	/** The system property that enables the metrics. */
+	public static final String PROPERTY = "com.davidebove.bitstring.metrics";
+
+	/** True, if the metrics are enabled. */
+	public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+	/** The listener that does nothing. */
+	private static final MetricsListener NONE = new MetricsListener() {
+	};
+
+	/** The current listener. */
+	private static volatile MetricsListener listener = NONE;
+
+	private Metrics() {
+	}
+
+	/**
+	 * Installs a listener, replacing the current one.
+	 *
+	 * @param newListener
+	 *            the listener, or null to remove the current one
+	 */
+	public static void setListener(final MetricsListener newListener) {
+		listener = (newListener == null) ? NONE : newListener;
+	}
+
+	/**
+	 * Returns the current listener.
+	 *
+	 * @return the listener, never null
+	 */
+	public static MetricsListener getListener() {
+		return listener;
+	}
+
+	static void bitsRead(final long count) {
+		listener.bitsRead(count);
+	}
+
+	static void bitsWritten(final long count) {
+		listener.bitsWritten(count);
+	}
+
+	static void searched(final long bitsScanned) {
+		listener.searched(bitsScanned);
+	}
+
+	static void bufferGrown(final long capacity) {
+		listener.bufferGrown(capacity);
+	}
+
+	static void converted(final long count) {
+		listener.converted(count);
+	}
+}
@@ -0,0 +1,80 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+/**
+ * A listener for the hot-path metrics of this library. All methods have an
+ * empty default implementation, so a listener only overrides what it needs.
+ * Listeners are installed with {@link Metrics#setListener(MetricsListener)}
+ * and may be called from several threads at once.
+ *
+ * @author Dbof
+ */
+public interface MetricsListener {
+	/**
+	 * Called after bits have been consumed from a {@link BitStream}.
+	 *
+	 * @param count
+	 *            the number of bits read
+	 */
+	default void bitsRead(long count) {
+	}
+
+	/**
+	 * Called after bits have been written to a {@link BitWriter}.
+	 *
+	 * @param count
+	 *            the number of bits written
+	 */
+	default void bitsWritten(long count) {
+	}
+
+	/**
+	 * Called after a search in a {@link BitString}.
+	 *
+	 * @param bitsScanned
+	 *            the number of start positions that were examined
+	 */
+	default void searched(long bitsScanned) {
+	}
+
+	/**
+	 * Called after an internal buffer has been grown.
+	 *
+	 * @param capacity
+	 *            the new capacity in bits
+	 */
+	default void bufferGrown(long capacity) {
+	}
+
+	/**
+	 * Called after a bit string has been converted to another representation,
+	 * like a byte array or a string.
+	 *
+	 * @param count
+	 *            the number of bits converted
+	 */
+	default void converted(long count) {
+	}
+}
@@ -0,0 +1,283 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel versions of the bulk operations of {@link BitString} for very
+ * large bit strings. The work is split into ranges of words that run as
+ * fork/join tasks; bit strings below {@link #THRESHOLD} bits are processed
+ * sequentially on the calling thread, as forking would cost more than it
+ * saves.
+ * <p>
+ * The tasks run in the {@link ForkJoinPool#commonPool() common pool}, or in
+ * the pool of the calling thread if it is a fork/join worker, so a dedicated
+ * pool can be used by submitting the call to it.
+ *
+ * @author Dbof
+ */
+public final class ParallelBits {
+	/** The number of bits below which operations run sequentially. */
+	public static final int THRESHOLD = 1 << 21;
+
+	/** The number of words processed by a single task. */
+	private static final int CHUNK_WORDS = THRESHOLD / 64;
+
+	/**
+	 * Instantiates a new ParallelBits; not used.
+	 */
+	private ParallelBits() {
+	}
+
+	/**
+	 * Creates a bit string from a byte array, like
+	 * {@link BitString#BitString(byte[])}.
+	 *
+	 * @param data
+	 *            the data
+	 * @return the bit string
+	 */
+	public static BitString fromByteArray(final byte[] data) {
+		if (data.length > Integer.MAX_VALUE / 8)
+			throw new OutOfMemoryError("Bit string too large!");
+		BitString result = new BitString();
+		result.ensureCapacity(data.length * 8L);
+		long[] words = result.words;
+		int whole = data.length / 8;
+		run(BitString.wordCount(data.length * 8), (from, to) -> {
+			for (int i = from; i < to; i++) {
+				long word = 0;
+				if (i < whole) {
+					for (int j = i * 8; j < i * 8 + 8; j++)
+						word = (word << 8) | (data[j] & 0xFF);
+				} else {
+					// the last, incomplete word
+					for (int j = 0; j < 8; j++) {
+						int index = i * 8 + j;
+						word = (word << 8)
+								| (index < data.length ? data[index] & 0xFF : 0);
+					}
+				}
+				words[i] = word;
+			}
+			return 0;
+		});
+		result.length = data.length * 8;
+		return result;
+	}
+
+	/**
+	 * Returns a byte array representing a bit string, like
+	 * {@link BitString#toByteArray()}.
+	 *
+	 * @param data
+	 *            the bit string
+	 * @return the byte array
+	 */
+	public static byte[] toByteArray(final BitString data) {
+		long[] words = data.words();
+		byte[] result = new byte[(data.length + 7) >>> 3];
+		run(BitString.wordCount(data.length), (from, to) -> {
+			for (int i = from; i < to; i++) {
+				int end = Math.min(i * 8 + 8, result.length);
+				for (int j = i * 8; j < end; j++)
+					result[j] = (byte) (words[i] >>> (56 - ((j & 7) << 3)));
+			}
+			return 0;
+		});
+		if (Metrics.ENABLED)
+			Metrics.converted(data.length);
+		return result;
+	}
+
+	/**
+	 * Returns the number of bits set to 1, like
+	 * {@link BitString#cardinality()}.
+	 *
+	 * @param data
+	 *            the bit string
+	 * @return the cardinality
+	 */
+	public static int cardinality(final BitString data) {
+		long[] words = data.words();
+		return (int) run(BitString.wordCount(data.length), (from, to) -> {
+			long count = 0;
+			for (int i = from; i < to; i++)
+				count += Long.bitCount(words[i]);
+			return count;
+		});
+	}
+
+	/**
+	 * Sets every bit of a bit string to the AND of itself and the bit at the
+	 * same index of another one, like {@link BitString#and(BitString)}.
+	 *
+	 * @param target
+	 *            the bit string to change
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public static void and(final BitString target, final BitString other) {
+		target.checkSameLength(other);
+		long[] words = target.mutableWords();
+		run(BitString.wordCount(target.length), (from, to) -> {
+			for (int i = from; i < to; i++)
+				words[i] &= other.getBits(i << 6, 64);
+			return 0;
+		});
+	}
+
+	/**
+	 * Sets every bit of a bit string to the OR of itself and the bit at the
+	 * same index of another one, like {@link BitString#or(BitString)}.
+	 *
+	 * @param target
+	 *            the bit string to change
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public static void or(final BitString target, final BitString other) {
+		target.checkSameLength(other);
+		long[] words = target.mutableWords();
+		run(BitString.wordCount(target.length), (from, to) -> {
+			for (int i = from; i < to; i++)
+				words[i] |= other.getBits(i << 6, 64);
+			return 0;
+		});
+	}
+
+	/**
+	 * Sets every bit of a bit string to the XOR of itself and the bit at the
+	 * same index of another one, like {@link BitString#xor(BitString)}.
+	 *
+	 * @param target
+	 *            the bit string to change
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public static void xor(final BitString target, final BitString other) {
+		target.checkSameLength(other);
+		long[] words = target.mutableWords();
+		run(BitString.wordCount(target.length), (from, to) -> {
+			for (int i = from; i < to; i++)
+				words[i] ^= other.getBits(i << 6, 64);
+			return 0;
+		});
+	}
+
+	/**
+	 * Clears every bit of a bit string that is set at the same index of
+	 * another one, like {@link BitString#andNot(BitString)}.
+	 *
+	 * @param target
+	 *            the bit string to change
+	 * @param other
+	 *            the other bit string
+	 * @throws IllegalArgumentException
+	 *             if the lengths differ
+	 */
+	public static void andNot(final BitString target, final BitString other) {
+		target.checkSameLength(other);
+		long[] words = target.mutableWords();
+		run(BitString.wordCount(target.length), (from, to) -> {
+			for (int i = from; i < to; i++)
+				words[i] &= ~other.getBits(i << 6, 64);
+			return 0;
+		});
+	}
+
+	/**
+	 * Applies a body to all words, in parallel if there are enough of them.
+	 *
+	 * @param count
+	 *            the number of words
+	 * @param body
+	 *            the body
+	 * @return the sum of the results of the body
+	 */
+	private static long run(final int count, final WordRange body) {
+		if (count <= CHUNK_WORDS)
+			return body.apply(0, count);
+		return new Split(body, 0, count).invoke();
+	}
+
+	/**
+	 * An operation on a range of words.
+	 */
+	private interface WordRange {
+		/**
+		 * Applies the operation to the words from..to-1.
+		 *
+		 * @param from
+		 *            the first word, inclusive
+		 * @param to
+		 *            the last word, exclusive
+		 * @return a partial result, or 0
+		 */
+		long apply(int from, int to);
+	}
+
+	/**
+	 * A task that splits a range of words in halves until they are small
+	 * enough, and sums the partial results.
+	 */
+	private static final class Split extends RecursiveTask<Long> {
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 4139026125874632151L;
+
+		/** The operation. */
+		private final WordRange body;
+
+		/** The first word, inclusive. */
+		private final int from;
+
+		/** The last word, exclusive. */
+		private final int to;
+
+		Split(final WordRange body, final int from, final int to) {
+			this.body = body;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from <= CHUNK_WORDS)
+				return body.apply(from, to);
+			int middle = (from + to) >>> 1;
+			Split left = new Split(body, from, middle);
+			left.fork();
+			long right = new Split(body, middle, to).compute();
+			return left.join() + right;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.Arrays;
+
+/**
+ * A canonical prefix code (as used by DEFLATE) built from the code length of
+ * every symbol. Codes of the same length are assigned consecutive values in
+ * symbol order, so the code lengths alone describe the whole code.
+ * <p>
+ * PrefixCode code = PrefixCode.fromLengths(2, 1, 3, 3);
+ *
+ * @author Dbof
+ */
+public class PrefixCode {
+	/** The maximum supported code length. */
+	public static final int MAX_LENGTH = 20;
+
+	/** The code length of every symbol, 0 if the symbol is unused. */
+	private final int[] lengths;
+
+	/** The code of every symbol. */
+	private final int[] codes;
+
+	/** The longest code length. */
+	private final int maxLength;
+
+	/**
+	 * Instantiates a new prefix code.
+	 *
+	 * @param lengths
+	 *            the code lengths
+	 * @param codes
+	 *            the codes
+	 * @param maxLength
+	 *            the longest code length
+	 */
+	private PrefixCode(final int[] lengths, final int[] codes,
+			final int maxLength) {
+		this.lengths = lengths;
+		this.codes = codes;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Builds the canonical prefix code for the given code lengths. A length of
+	 * 0 means the symbol does not occur. Incomplete codes are accepted, but
+	 * over-subscribed ones are not.
+	 *
+	 * @param lengths
+	 *            the code length of every symbol
+	 * @return the prefix code
+	 * @throws IllegalArgumentException
+	 *             if a length is out of range or the lengths do not describe
+	 *             a prefix code
+	 */
+	public static PrefixCode fromLengths(final int... lengths) {
+		int maxLength = 0;
+		for (int len : lengths) {
+			if (len < 0 || len > MAX_LENGTH)
+				throw new IllegalArgumentException("Invalid code length: " + len);
+			maxLength = Math.max(maxLength, len);
+		}
+
+		// count codes per length and check that the code is not oversubscribed
+		long[] count = new long[maxLength + 1];
+		for (int len : lengths)
+			count[len]++;
+		count[0] = 0;
+		long left = 1;
+		for (int len = 1; len <= maxLength; len++) {
+			left = (left << 1) - count[len];
+			if (left < 0)
+				throw new IllegalArgumentException("Code lengths are oversubscribed!");
+		}
+
+		// first code of every length
+		int[] next = new int[maxLength + 2];
+		int code = 0;
+		for (int len = 1; len <= maxLength; len++) {
+			code = (code + (int) count[len - 1]) << 1;
+			next[len] = code;
+		}
+
+		int[] codes = new int[lengths.length];
+		for (int symbol = 0; symbol < lengths.length; symbol++) {
+			int len = lengths[symbol];
+			if (len != 0)
+				codes[symbol] = next[len]++;
+		}
+		return new PrefixCode(lengths.clone(), codes, maxLength);
+	}
+
+	/**
+	 * Returns the number of symbols of this code, including unused ones.
+	 *
+	 * @return the symbol count
+	 */
+	public int symbolCount() {
+		return lengths.length;
+	}
+
+	/**
+	 * Returns the length of the longest code.
+	 *
+	 * @return the maximum code length
+	 */
+	public int maxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Returns the code length of a symbol.
+	 *
+	 * @param symbol
+	 *            the symbol
+	 * @return the code length, 0 if the symbol is unused
+	 */
+	public int length(final int symbol) {
+		return lengths[symbol];
+	}
+
+	/**
+	 * Returns the code of a symbol. Only the lowest {@link #length(int)} bits
+	 * are significant.
+	 *
+	 * @param symbol
+	 *            the symbol
+	 * @return the code
+	 */
+	public int code(final int symbol) {
+		return codes[symbol];
+	}
+
+	/**
+	 * Creates a table-driven decoder for this code.
+	 *
+	 * @return the decoder
+	 */
+	public PrefixDecoder decoder() {
+		return new PrefixDecoder(this);
+	}
+
+	/**
+	 * Creates an encoder for this code.
+	 *
+	 * @return the encoder
+	 */
+	public PrefixEncoder encoder() {
+		return new PrefixEncoder(this);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(lengths);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PrefixCode)) {
+			return false;
+		}
+		return Arrays.equals(lengths, ((PrefixCode) obj).lengths);
+	}
+}
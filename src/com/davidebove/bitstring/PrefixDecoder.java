@@ -0,0 +1,167 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A table-driven decoder for a {@link PrefixCode}. Instead of walking a code
+ * tree bit by bit, the decoder peeks at the next bits of the stream and
+ * resolves the symbol with one lookup in the root table, or two lookups for
+ * codes longer than the root table width.
+ *
+ * @author Dbof
+ */
+public class PrefixDecoder {
+	/** The maximum width of the root table in bits. */
+	private static final int ROOT_BITS = 9;
+
+	/** The number of bits used for the code length in a table entry. */
+	private static final int LENGTH_BITS = 5;
+
+	/** The mask for the code length in a table entry. */
+	private static final int LENGTH_MASK = (1 << LENGTH_BITS) - 1;
+
+	/** The longest code length. */
+	private final int maxLength;
+
+	/** The width of the root table in bits. */
+	private final int rootBits;
+
+	/**
+	 * The lookup table: the root table followed by all second level tables. An
+	 * entry is either 0 (no code), positive (symbol and code length) or
+	 * negative (complement of offset and width of a second level table).
+	 */
+	private final int[] table;
+
+	/**
+	 * Instantiates a new decoder.
+	 *
+	 * @param code
+	 *            the prefix code
+	 */
+	public PrefixDecoder(final PrefixCode code) {
+		maxLength = code.maxLength();
+		rootBits = Math.min(maxLength, ROOT_BITS);
+		int rootSize = 1 << rootBits;
+
+		// longest code suffix below every root prefix
+		int[] subBits = new int[rootSize];
+		for (int symbol = 0; symbol < code.symbolCount(); symbol++) {
+			int len = code.length(symbol);
+			if (len > rootBits) {
+				int prefix = code.code(symbol) >>> (len - rootBits);
+				subBits[prefix] = Math.max(subBits[prefix], len - rootBits);
+			}
+		}
+
+		int size = rootSize;
+		for (int bits : subBits) {
+			if (bits > 0)
+				size += 1 << bits;
+		}
+		table = new int[size];
+
+		int offset = rootSize;
+		for (int prefix = 0; prefix < rootSize; prefix++) {
+			if (subBits[prefix] > 0) {
+				table[prefix] = ~((offset << LENGTH_BITS) | subBits[prefix]);
+				offset += 1 << subBits[prefix];
+			}
+		}
+
+		for (int symbol = 0; symbol < code.symbolCount(); symbol++) {
+			int len = code.length(symbol);
+			if (len == 0)
+				continue;
+			int entry = (symbol << LENGTH_BITS) | len;
+			if (len <= rootBits) {
+				int start = code.code(symbol) << (rootBits - len);
+				Arrays.fill(table, start, start + (1 << (rootBits - len)), entry);
+			} else {
+				int link = ~table[code.code(symbol) >>> (len - rootBits)];
+				int bits = link & LENGTH_MASK;
+				int suffix = code.code(symbol) & ((1 << (len - rootBits)) - 1);
+				int start = (link >>> LENGTH_BITS)
+						+ (suffix << (bits - (len - rootBits)));
+				Arrays.fill(table, start, start + (1 << (bits - (len - rootBits))), entry);
+			}
+		}
+	}
+
+	/**
+	 * Reads the next symbol from a bit stream.
+	 *
+	 * @param stream
+	 *            the bit stream
+	 * @return the decoded symbol
+	 * @throws IOException
+	 *             if the stream ends within a code or the bits do not form a
+	 *             valid code.
+	 */
+	public int decode(final BitStream stream) throws IOException {
+		if (maxLength == 0)
+			throw new IOException("Empty prefix code!");
+		int window = (int) stream.lookahead(maxLength);
+		int entry = table[window >>> (maxLength - rootBits)];
+		if (entry < 0) {
+			int link = ~entry;
+			int bits = link & LENGTH_MASK;
+			int index = (window >>> (maxLength - rootBits - bits))
+					& ((1 << bits) - 1);
+			entry = table[(link >>> LENGTH_BITS) + index];
+		}
+
+		int len = entry & LENGTH_MASK;
+		if (entry == 0)
+			throw new IOException("Invalid prefix code!");
+		if (len > stream.remaining())
+			throw new IOException();
+		stream.advance(len);
+		return entry >>> LENGTH_BITS;
+	}
+
+	/**
+	 * Reads count symbols from a bit stream into an array.
+	 *
+	 * @param stream
+	 *            the bit stream
+	 * @param symbols
+	 *            the destination array
+	 * @param offset
+	 *            the start offset in the destination array
+	 * @param count
+	 *            the number of symbols to read
+	 * @throws IOException
+	 *             if the stream ends within a code or the bits do not form a
+	 *             valid code.
+	 */
+	public void decode(final BitStream stream, final int[] symbols,
+			final int offset, final int count) throws IOException {
+		for (int i = offset; i < offset + count; i++)
+			symbols[i] = decode(stream);
+	}
+}
@@ -0,0 +1,103 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+/**
+ * An encoder for a {@link PrefixCode}, writing the code of every symbol to a
+ * {@link BitWriter}. Codes are written most significant bit first in stream
+ * order, whatever the bit order of the writer, which is what
+ * {@link PrefixDecoder} reads. With {@link BitOrder#LSB_FIRST} this is the
+ * packing of DEFLATE.
+ *
+ * @author Dbof
+ */
+public class PrefixEncoder {
+	/** The code length of every symbol. */
+	private final int[] lengths;
+
+	/** The code of every symbol. */
+	private final int[] codes;
+
+	/** The bit-reversed code of every symbol, for LSB_FIRST writers. */
+	private final int[] reversed;
+
+	/**
+	 * Instantiates a new encoder.
+	 *
+	 * @param code
+	 *            the prefix code
+	 */
+	public PrefixEncoder(final PrefixCode code) {
+		lengths = new int[code.symbolCount()];
+		codes = new int[code.symbolCount()];
+		reversed = new int[code.symbolCount()];
+		for (int symbol = 0; symbol < lengths.length; symbol++) {
+			lengths[symbol] = code.length(symbol);
+			codes[symbol] = code.code(symbol);
+			if (lengths[symbol] > 0)
+				reversed[symbol] = Integer.reverse(codes[symbol])
+						>>> (32 - lengths[symbol]);
+		}
+	}
+
+	/**
+	 * Writes the code of a symbol.
+	 *
+	 * @param symbol
+	 *            the symbol
+	 * @param out
+	 *            the bit writer
+	 * @throws IllegalArgumentException
+	 *             if the symbol has no code
+	 */
+	public void encode(final int symbol, final BitWriter out) {
+		if (symbol < 0 || symbol >= lengths.length || lengths[symbol] == 0)
+			throw new IllegalArgumentException("Symbol has no code: " + symbol);
+		// an LSB_FIRST writer emits the lowest bit first
+		if (out.bitOrder() == BitOrder.LSB_FIRST)
+			out.write(reversed[symbol], lengths[symbol]);
+		else
+			out.write(codes[symbol], lengths[symbol]);
+	}
+
+	/**
+	 * Writes the codes of several symbols.
+	 *
+	 * @param symbols
+	 *            the symbols
+	 * @param offset
+	 *            the start offset in the symbol array
+	 * @param count
+	 *            the number of symbols to write
+	 * @param out
+	 *            the bit writer
+	 * @throws IllegalArgumentException
+	 *             if a symbol has no code
+	 */
+	public void encode(final int[] symbols, final int offset, final int count,
+			final BitWriter out) {
+		for (int i = offset; i < offset + count; i++)
+			encode(symbols[i], out);
+	}
+}
@@ -0,0 +1,297 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * A binary radix trie (Patricia trie) that maps bit string prefixes to
+ * values, for longest-prefix-match lookups such as IP routing tables or
+ * prefix classification.
+ * <p>
+ * Keys of any length can be built with {@link BitString#of(String)} or
+ * {@link BitString#prefix(int)}, for example address.prefix(12) for a /12
+ * route; the byte-padding constructors are not suitable for prefixes.
+ * <p>
+ * Chains of nodes with a single child are collapsed, so the trie has at most
+ * two nodes per prefix. The nodes are stored in parallel arrays instead of
+ * objects, and a lookup compares every bit of the key at most once, 64 bits
+ * at a time.
+ *
+ * @author Dbof
+ * @param <V>
+ *            the type of the values
+ */
+public class PrefixTrie<V> {
+	/** The initial number of nodes. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The prefix of every node; only the first lengths[node] bits count. */
+	private BitString[] keys;
+
+	/** The length of the prefix of every node. */
+	private int[] lengths;
+
+	/** The child of every node whose next bit is 0, or -1. */
+	private int[] zeros;
+
+	/** The child of every node whose next bit is 1, or -1. */
+	private int[] ones;
+
+	/** The value of every node, or null. */
+	private Object[] values;
+
+	/** The number of nodes; node 0 is the root with the empty prefix. */
+	private int nodes;
+
+	/** The number of prefixes with a value. */
+	private int size = 0;
+
+	/**
+	 * Instantiates a new, empty trie.
+	 */
+	public PrefixTrie() {
+		keys = new BitString[INITIAL_CAPACITY];
+		lengths = new int[INITIAL_CAPACITY];
+		zeros = new int[INITIAL_CAPACITY];
+		ones = new int[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		nodes = 0;
+		newNode(new BitString(), 0, null);
+	}
+
+	/**
+	 * Associates a value with a prefix.
+	 *
+	 * @param prefix
+	 *            the prefix, which is copied
+	 * @param value
+	 *            the value
+	 * @return the previous value of the prefix, or null
+	 */
+	public V put(final BitString prefix, final V value) {
+		if (value == null)
+			throw new NullPointerException();
+		int parent = -1;
+		int node = 0;
+		while (true) {
+			int length = lengths[node];
+			int common = Math.min(length, prefix.longestCommonPrefix(keys[node]));
+			if (common < length) {
+				// split the node at the first differing bit
+				int middle = newNode(keys[node], common, null);
+				link(middle, bit(keys[node], common), node);
+				link(parent, bit(prefix, lengths[parent]), middle);
+				if (common == prefix.length()) {
+					values[middle] = value;
+				} else {
+					link(middle, bit(prefix, common),
+							newNode(new BitString(prefix), prefix.length(), value));
+				}
+				size++;
+				return null;
+			}
+			if (length == prefix.length()) {
+				@SuppressWarnings("unchecked")
+				V previous = (V) values[node];
+				values[node] = value;
+				if (previous == null)
+					size++;
+				return previous;
+			}
+			int child = bit(prefix, length) ? ones[node] : zeros[node];
+			if (child < 0) {
+				link(node, bit(prefix, length),
+						newNode(new BitString(prefix), prefix.length(), value));
+				size++;
+				return null;
+			}
+			parent = node;
+			node = child;
+		}
+	}
+
+	/**
+	 * Returns the value of a prefix.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @return the value, or null if the prefix has no value
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final BitString prefix) {
+		int node = find(prefix, true);
+		return (node >= 0) ? (V) values[node] : null;
+	}
+
+	/**
+	 * Returns the value of the longest prefix of a key that has a value.
+	 *
+	 * @param key
+	 *            the key, for example an address
+	 * @return the value, or null if no prefix of the key has a value
+	 */
+	@SuppressWarnings("unchecked")
+	public V longestPrefixMatch(final BitString key) {
+		int node = find(key, false);
+		return (node >= 0) ? (V) values[node] : null;
+	}
+
+	/**
+	 * Removes the value of a prefix. The nodes of the prefix are kept, so a
+	 * prefix can be removed and added again cheaply.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @return the removed value, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(final BitString prefix) {
+		int node = find(prefix, true);
+		if (node < 0)
+			return null;
+		V previous = (V) values[node];
+		values[node] = null;
+		size--;
+		return previous;
+	}
+
+	/**
+	 * Returns the number of prefixes with a value.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Calls an action for every prefix and its value, in the order of
+	 * {@link BitString#compareTo(BitString)}.
+	 *
+	 * @param action
+	 *            the action
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(final BiConsumer<? super BitString, ? super V> action) {
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (values[node] != null)
+				action.accept(keys[node].prefix(lengths[node]),
+						(V) values[node]);
+			if (top + 2 > stack.length)
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			// visit the zeros first
+			if (ones[node] >= 0)
+				stack[top++] = ones[node];
+			if (zeros[node] >= 0)
+				stack[top++] = zeros[node];
+		}
+	}
+
+	/**
+	 * Walks down the trie along a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param exact
+	 *            true for the node of the key itself, false for the deepest
+	 *            node with a value whose prefix is a prefix of the key
+	 * @return the node, or -1
+	 */
+	private int find(final BitString key, final boolean exact) {
+		int best = -1;
+		int node = 0;
+		int checked = 0;
+		while (true) {
+			int length = lengths[node];
+			if (length > key.length()
+					|| !matches(keys[node], key, checked, length))
+				break;
+			checked = length;
+			if (values[node] != null)
+				best = node;
+			if (length == key.length())
+				return (!exact || best == node) ? best : -1;
+			node = bit(key, length) ? ones[node] : zeros[node];
+			if (node < 0)
+				break;
+		}
+		return exact ? -1 : best;
+	}
+
+	/**
+	 * Checks whether two bit strings are equal from one index to another.
+	 */
+	private static boolean matches(final BitString a, final BitString b,
+			final int from, final int to) {
+		for (int i = from; i < to; i += 64) {
+			int n = Math.min(64, to - i);
+			if (a.getBits(i, n) != b.getBits(i, n))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the bit at an index.
+	 */
+	private static boolean bit(final BitString data, final int index) {
+		return data.getBits(index, 1) != 0;
+	}
+
+	/**
+	 * Makes a node the child of another one.
+	 */
+	private void link(final int parent, final boolean one, final int child) {
+		if (one)
+			ones[parent] = child;
+		else
+			zeros[parent] = child;
+	}
+
+	/**
+	 * Adds a node without children.
+	 */
+	private int newNode(final BitString key, final int length, final Object value) {
+		if (nodes == lengths.length) {
+			int capacity = nodes * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			zeros = Arrays.copyOf(zeros, capacity);
+			ones = Arrays.copyOf(ones, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		keys[nodes] = key;
+		lengths[nodes] = length;
+		zeros[nodes] = -1;
+		ones[nodes] = -1;
+		values[nodes] = value;
+		return nodes++;
+	}
+}
@@ -0,0 +1,198 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+/**
+ * A Rabin-Karp rolling hash over a window of bits that slides along a
+ * {@link BitString}. Moving the window by one bit takes constant time, so
+ * every position of a bit string can be hashed in a single pass, for example
+ * to find cut points for content-defined chunking or candidate matches for a
+ * pattern:
+ * <p>
+ * RollingHash hash = new RollingHash(data, 48);<br>
+ * do {<br>
+ * &nbsp;&nbsp;if ((hash.hash() &amp; 0xFFF) == 0) cut(hash.position());<br>
+ * } while (hash.roll());
+ * <p>
+ * Equal windows always have equal hashes, so the hash of a pattern can be
+ * computed with a RollingHash over the pattern itself.
+ * <p>
+ * The polynomial is evaluated modulo the Mersenne prime 2^61 - 1, so every
+ * bit of the hash depends on the whole window. A modulus of 2^64 would leave
+ * the low bits, which chunking masks, depending only on the parity of the
+ * window and fail for Thue-Morse-like inputs.
+ *
+ * @author Dbof
+ */
+public class RollingHash {
+	/** The modulus, the Mersenne prime 2^61 - 1. */
+	private static final long MODULUS = (1L << 61) - 1;
+
+	/** The base of the polynomial, below 2^31. */
+	private static final long BASE = 0x5BD1E995L;
+
+	/** The value of a 0 bit. */
+	private static final long ZERO = 0x1E3779B97F4A7C15L;
+
+	/** The value of a 1 bit. */
+	private static final long ONE = 0x02B2AE3D27D4EB4FL;
+
+	/** The bit string. */
+	private final BitString data;
+
+	/** The window size in bits. */
+	private final int window;
+
+	/** The value of a 0 bit leaving the window, ZERO * BASE^window. */
+	private final long zeroOut;
+
+	/** The value of a 1 bit leaving the window, ONE * BASE^window. */
+	private final long oneOut;
+
+	/** The start of the current window. */
+	private int position;
+
+	/** The hash of the current window. */
+	private long hash;
+
+	/**
+	 * Instantiates a new rolling hash with the window at the start of the bit
+	 * string.
+	 *
+	 * @param data
+	 *            the bit string
+	 * @param window
+	 *            the window size in bits
+	 */
+	public RollingHash(final BitString data, final int window) {
+		if (window <= 0 || window > data.length())
+			throw new IllegalArgumentException("Invalid window size: " + window);
+		this.data = data;
+		this.window = window;
+		long power = 1;
+		for (int i = 0; i < window; i++)
+			power = timesBase(power);
+		zeroOut = multiply(ZERO, power);
+		oneOut = multiply(ONE, power);
+		seek(0);
+	}
+
+	/**
+	 * Moves the window to the specified position and hashes it from scratch.
+	 *
+	 * @param index
+	 *            the start of the window
+	 */
+	public void seek(final int index) {
+		if (index < 0 || index + window > data.length())
+			throw new IndexOutOfBoundsException();
+		long h = 0;
+		for (int i = index; i < index + window; i += 64) {
+			int n = Math.min(64, index + window - i);
+			long bits = data.getBits(i, n);
+			for (int j = n - 1; j >= 0; j--)
+				h = reduce(timesBase(h) + (((bits >>> j) & 1) == 0 ? ZERO : ONE));
+		}
+		hash = h;
+		position = index;
+	}
+
+	/**
+	 * Moves the window one bit forward.
+	 *
+	 * @return true, if the window was moved, false if it is already at the end
+	 *         of the bit string
+	 */
+	public boolean roll() {
+		if (position + window >= data.length())
+			return false;
+		long out = data.getBits(position, 1) == 0 ? zeroOut : oneOut;
+		long in = data.getBits(position + window, 1) == 0 ? ZERO : ONE;
+		hash = reduce(timesBase(hash) + in + MODULUS - out);
+		position++;
+		return true;
+	}
+
+	/**
+	 * Returns the hash of the current window.
+	 *
+	 * @return the hash, between 0 and 2^61 - 2
+	 */
+	public long hash() {
+		return hash;
+	}
+
+	/**
+	 * Returns the start of the current window.
+	 *
+	 * @return the position
+	 */
+	public int position() {
+		return position;
+	}
+
+	/**
+	 * Returns the window size.
+	 *
+	 * @return the window size in bits
+	 */
+	public int window() {
+		return window;
+	}
+
+	/**
+	 * Reduces a non-negative value below 2^63 modulo 2^61 - 1, using
+	 * 2^61 = 1.
+	 */
+	private static long reduce(final long x) {
+		long r = (x & MODULUS) + (x >>> 61);
+		return (r >= MODULUS) ? r - MODULUS : r;
+	}
+
+	/**
+	 * Multiplies a reduced value by BASE modulo 2^61 - 1 without overflow,
+	 * by splitting it at bit 32.
+	 */
+	private static long timesBase(final long h) {
+		long t = (h >>> 32) * BASE;
+		// t * 2^32 = (t >>> 29) * 2^61 + (t mod 2^29) * 2^32
+		long high = (t >>> 29) + ((t & ((1L << 29) - 1)) << 32);
+		return reduce(reduce((h & 0xFFFFFFFFL) * BASE) + high);
+	}
+
+	/**
+	 * Multiplies two reduced values modulo 2^61 - 1 by doubling. Only used
+	 * when a window is set up.
+	 */
+	private static long multiply(final long a, final long b) {
+		long result = 0;
+		long x = a;
+		for (long y = b; y != 0; y >>>= 1) {
+			if ((y & 1) != 0)
+				result = reduce(result + x);
+			x = reduce(x << 1);
+		}
+		return result;
+	}
+}
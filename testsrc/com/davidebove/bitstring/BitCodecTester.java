@@ -0,0 +1,197 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BitCodec}
+ * 
+ * @author Dbof
+ *
+ */
+public class BitCodecTester {
+
+	/** The layout used by the tests. */
+	private static final BitLayout LAYOUT = BitLayout.builder()
+			.field("version", 3).flag("urgent").skip(4).field("length", 12)
+			.signedField("offset", 8).field("id", 40).field("tag", 16)
+			.build();
+
+	/**
+	 * A header with fields of every supported type.
+	 */
+	static class Header {
+		private byte version;
+		private boolean urgent;
+		private short length;
+		private int offset;
+		private long id;
+		private char tag;
+	}
+
+	/**
+	 * A header whose version cannot be decoded into.
+	 */
+	static class FinalHeader {
+		private final byte version = 0;
+	}
+
+	/**
+	 * Test method for {@link BitCodec#decode(BitStream)}.
+	 */
+	@Test
+	public final void testDecode() {
+		BitCodec<Header> codec = LAYOUT.bind(Header.class);
+		BitWriter writer = new BitWriter();
+		LAYOUT.encode(new long[] { 6, 1, 1500, -100, 0x123456789AL, 0xFFFE },
+				writer);
+		try {
+			Header header = codec.decode(new BitStream(writer.toByteArray()));
+			assertEquals(6, header.version);
+			assertTrue(header.urgent);
+			assertEquals(1500, header.length);
+			assertEquals(-100, header.offset);
+			assertEquals(0x123456789AL, header.id);
+			assertEquals(0xFFFE, header.tag);
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for {@link BitCodec#decode(BitStream)} and
+	 * {@link BitCodec#encode(Object, BitWriter)} with
+	 * {@link BitOrder#LSB_FIRST}.
+	 */
+	@Test
+	public final void testLsbFirst() {
+		BitCodec<Header> codec = LAYOUT.bind(Header.class);
+		Header header = new Header();
+		header.version = 3;
+		header.urgent = true;
+		header.length = 1500;
+		header.offset = -100;
+		header.id = 0x123456789AL;
+		header.tag = 0xFFFE;
+		BitWriter writer = new BitWriter().bitOrder(BitOrder.LSB_FIRST);
+		codec.encode(header, writer);
+
+		// the same fields written one by one
+		BitWriter reference = new BitWriter().bitOrder(BitOrder.LSB_FIRST);
+		reference.write(3, 3);
+		reference.write(1, 1);
+		reference.write(0, 4);
+		reference.write(1500, 12);
+		reference.write(-100, 8);
+		reference.write(0x123456789AL, 40);
+		reference.write(0xFFFE, 16);
+		assertArrayEquals(reference.toByteArray(), writer.toByteArray());
+
+		BitStream stream = new BitStream(writer.toByteArray())
+				.bitOrder(BitOrder.LSB_FIRST);
+		try {
+			Header copy = codec.decode(stream);
+			assertEquals(3, copy.version);
+			assertTrue(copy.urgent);
+			assertEquals(1500, copy.length);
+			assertEquals(-100, copy.offset);
+			assertEquals(0x123456789AL, copy.id);
+			assertEquals(0xFFFE, copy.tag);
+
+			stream.position(0);
+			assertEquals(3, stream.readInteger(3));
+			assertEquals(1, stream.readInteger(1));
+			stream.readInteger(4);
+			assertEquals(1500, stream.readInteger(12));
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for {@link BitCodec#encode(Object, BitWriter)}.
+	 */
+	@Test
+	public final void testEncode() {
+		BitCodec<Header> codec = LAYOUT.bind(Header.class);
+		Header header = new Header();
+		header.version = 2;
+		header.length = 4095;
+		header.offset = 127;
+		header.id = -1;
+		header.tag = 'x';
+		BitWriter writer = new BitWriter();
+		codec.encode(header, writer);
+		assertEquals(LAYOUT.length(), writer.length());
+
+		BitStream stream = new BitStream(writer.toByteArray());
+		Header copy = new Header();
+		try {
+			assertArrayEquals(new long[] { 2, 0, 4095, 127, (1L << 40) - 1,
+					'x' }, LAYOUT.decode(stream));
+			stream.position(0);
+			codec.decode(stream, copy);
+		} catch (IOException e) {
+			fail();
+		}
+		assertEquals(header.version, copy.version);
+		assertEquals(header.offset, copy.offset);
+		assertEquals((1L << 40) - 1, copy.id);
+		assertEquals('x', copy.tag);
+	}
+
+	/**
+	 * Test method for {@link BitLayout#bind(Class)}.
+	 */
+	@Test
+	public final void testBind() {
+		try {
+			BitLayout.builder().field("missing", 3).build().bind(Header.class);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			BitLayout.builder().field("value", 3).build().bind(String.class);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			BitLayout.builder().field("version", 3).build()
+					.bind(FinalHeader.class);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().endsWith("is final"));
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BitLayout}
+ * 
+ * @author Dbof
+ *
+ */
+public class BitLayoutTester {
+
+	/**
+	 * Test method for {@link BitLayout#decode(BitStream)}.
+	 */
+	@Test
+	public final void testDecode() {
+		BitLayout layout = BitLayout.builder().field("version", 3)
+				.flag("flag").field("length", 12).skip(4)
+				.signedField("delta", 5).build();
+		assertEquals(25, layout.length());
+		assertEquals(4, layout.fieldCount());
+		assertEquals(2, layout.indexOf("length"));
+		assertEquals(20, layout.offset(3));
+
+		BitStream stream = new BitStream("101" + "1" + "000000010011"
+				+ "1111" + "11101" + "1110000");
+		try {
+			assertArrayEquals(new long[] { 5, 1, 19, -3 },
+					layout.decode(stream));
+			assertEquals(25, stream.position());
+			layout.decode(stream);
+			fail("Should throw exception");
+		} catch (IOException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitLayout#encode(long[], BitWriter)}.
+	 */
+	@Test
+	public final void testEncode() {
+		// fields of all widths, spanning several lanes
+		Random random = new Random(51);
+		BitLayout.Builder builder = BitLayout.builder();
+		for (int i = 0; i < 40; i++) {
+			if (i % 7 == 3)
+				builder.skip(1 + random.nextInt(70));
+			builder.field("f" + i, 1 + random.nextInt(64));
+		}
+		BitLayout layout = builder.build();
+
+		for (BitOrder order : BitOrder.values()) {
+			long[] values = new long[layout.fieldCount()];
+			BitWriter reference = new BitWriter().bitOrder(order);
+			int position = 0;
+			for (int i = 0; i < values.length; i++) {
+				int width = layout.width(i);
+				values[i] = random.nextLong()
+						& ((width == 64) ? -1L : (1L << width) - 1);
+				// skipped bits are zeros
+				for (; position < layout.offset(i); position++)
+					reference.writeBoolean(false);
+				// every field is written like BitWriter.write(long, int)
+				reference.write(values[i], width);
+				position += width;
+			}
+
+			BitWriter writer = new BitWriter().bitOrder(order);
+			layout.encode(values, writer);
+			assertEquals(layout.length(), writer.length());
+			assertArrayEquals(reference.toByteArray(), writer.toByteArray());
+
+			BitStream stream = new BitStream(writer.toByteArray())
+					.bitOrder(order);
+			try {
+				assertArrayEquals(values, layout.decode(stream));
+				// and read like BitStream.peekBits(int)
+				stream.position(0);
+				for (int i = 0; i < values.length; i++) {
+					stream.position(layout.offset(i));
+					assertEquals(values[i], stream.peekBits(layout.width(i)));
+				}
+			} catch (IOException e) {
+				fail();
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link BitLayout#decode(BitStream)} and
+	 * {@link BitLayout#encode(long[], BitWriter)} with
+	 * {@link BitOrder#LSB_FIRST}.
+	 */
+	@Test
+	public final void testLsbFirst() {
+		BitLayout layout = BitLayout.builder().field("a", 3)
+				.signedField("b", 4).flag("c").build();
+		try {
+			BitStream stream = new BitStream(new byte[] { 0x03 })
+					.bitOrder(BitOrder.LSB_FIRST);
+			assertArrayEquals(new long[] { 3, 0, 0 }, layout.decode(stream));
+			stream.position(0);
+			assertEquals(3, stream.readInteger(3));
+
+			stream = new BitStream(new byte[] { (byte) 0xCD })
+					.bitOrder(BitOrder.LSB_FIRST);
+			long[] values = layout.decode(stream);
+			stream.position(0);
+			assertEquals(stream.readInteger(3), values[0]);
+			assertEquals((stream.readInteger(4) << 28) >> 28, values[1]);
+			assertEquals(stream.readInteger(1), values[2]);
+		} catch (IOException e) {
+			fail();
+		}
+
+		BitWriter writer = new BitWriter().bitOrder(BitOrder.LSB_FIRST);
+		layout.encode(new long[] { 3, -2, 1 }, writer);
+		BitWriter reference = new BitWriter().bitOrder(BitOrder.LSB_FIRST);
+		reference.write(3, 3);
+		reference.write(-2, 4);
+		reference.write(1, 1);
+		assertArrayEquals(reference.toByteArray(), writer.toByteArray());
+		assertEquals((byte) 0xF3, writer.toByteArray()[0]);
+	}
+
+	/**
+	 * Test method for {@link BitLayout.Builder#field(String, int)}.
+	 */
+	@Test
+	public final void testBuilder() {
+		try {
+			BitLayout.builder().field("a", 65);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			BitLayout.builder().field("a", 3).flag("a");
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		assertEquals(-1, BitLayout.builder().skip(8).build().indexOf("a"));
+	}
+}
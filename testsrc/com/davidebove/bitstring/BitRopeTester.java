@@ -0,0 +1,147 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BitRope}
+ * 
+ * @author Dbof
+ *
+ */
+public class BitRopeTester {
+
+	/**
+	 * Test method for {@link BitRope#append(BitString)}.
+	 */
+	@Test
+	public final void testAppend() {
+		Random random = new Random(21);
+		BitRope rope = new BitRope();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			byte[] data = new byte[random.nextInt(20)];
+			random.nextBytes(data);
+			BitString fragment = new BitString(data);
+			rope.append(fragment);
+			expected.append(fragment.toString());
+		}
+		assertEquals(expected.length(), rope.length());
+		assertEquals(expected.toString(), rope.toString());
+		// the tree stays balanced
+		assertTrue(rope.height() <= 1.45 * 12 + 2);
+
+		for (int i = 0; i < 1000; i++) {
+			int index = random.nextInt(expected.length());
+			assertEquals(expected.charAt(index) == '1', rope.bitSet(index));
+		}
+
+		BitRope twice = new BitRope(new BitString("10110011"));
+		twice.append(twice);
+		twice.append(new BitString(new byte[0]));
+		assertEquals("1011001110110011", twice.toString());
+	}
+
+	/**
+	 * Test method for {@link BitRope#substring(long, long)}.
+	 */
+	@Test
+	public final void testSubstring() {
+		Random random = new Random(22);
+		BitRope rope = new BitRope();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			byte[] data = new byte[1 + random.nextInt(30)];
+			random.nextBytes(data);
+			rope.append(new BitString(data));
+			expected.append(new BitString(data).toString());
+		}
+		for (int i = 0; i < 200; i++) {
+			int begin = random.nextInt(expected.length());
+			int end = begin + random.nextInt(expected.length() - begin + 1);
+			BitRope sub = rope.substring(begin, end);
+			assertEquals(expected.substring(begin, end), sub.toString());
+
+			// substrings can be assembled again
+			sub.append(rope.substring(0, 13));
+			assertEquals(expected.substring(begin, end)
+					+ expected.substring(0, 13), sub.toString());
+		}
+		assertEquals(0, rope.substring(5, 5).length());
+
+		try {
+			rope.substring(10, 9);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitRope#toByteArray()}.
+	 */
+	@Test
+	public final void testToByteArray() {
+		Random random = new Random(23);
+		BitRope rope = new BitRope();
+		BitWriter expected = new BitWriter();
+		StringBuilder bits = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			byte[] data = new byte[1 + random.nextInt(40)];
+			random.nextBytes(data);
+			BitString fragment = new BitString(data);
+			// odd offsets, so the fragments are not byte aligned
+			int begin = random.nextInt(8);
+			rope.append(new BitRope(fragment).substring(begin));
+			expected.write(fragment, begin, fragment.length());
+			bits.append(fragment.toString().substring(begin));
+		}
+		assertEquals(expected.length(), rope.length());
+		assertArrayEquals(expected.toByteArray(), rope.toByteArray());
+		assertEquals(bits.toString(), rope.toBitString().toString());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			rope.writeTo(out);
+		} catch (IOException e) {
+			fail();
+		}
+		assertArrayEquals(expected.toByteArray(), out.toByteArray());
+
+		BitWriter writer = new BitWriter();
+		rope.writeTo(writer);
+		assertArrayEquals(expected.toByteArray(), writer.toByteArray());
+		assertEquals(0, new BitRope().toByteArray().length);
+	}
+}
@@ -0,0 +1,181 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BitStreamInputStream}
+ * 
+ * @author Dbof
+ *
+ */
+public class BitStreamInputStreamTester {
+
+	/**
+	 * Test method for {@link BitStreamInputStream#read()}.
+	 */
+	@Test
+	public final void testRead() {
+		BitStream stream = new BitStream(new byte[] { 4, -1, 2 });
+		BitStreamInputStream in = stream.asInputStream();
+		try {
+			assertEquals(4, in.read());
+			assertEquals(255, in.read());
+			assertFalse(stream.readBoolean());
+			// only 7 bits left
+			assertEquals(-1, in.read());
+			assertEquals(0, in.available());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for {@link BitStreamInputStream#read(byte[], int, int)}.
+	 */
+	@Test
+	public final void testReadArray() {
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 };
+		BitStream stream = new BitStream(data);
+		BitStreamInputStream in = stream.asInputStream();
+		byte[] buffer = new byte[20];
+		try {
+			assertEquals(12, in.read(buffer, 1, 20 - 1));
+			assertEquals(-1, in.read(buffer, 0, 1));
+			for (int i = 0; i < data.length; i++)
+				assertEquals(data[i], buffer[i + 1]);
+
+			// unaligned
+			stream.position(4);
+			assertEquals(11, in.read(buffer, 0, 20));
+			assertEquals(0x10, buffer[0]);
+			assertEquals(0x20, buffer[1]);
+			assertEquals((byte) 0xB0, buffer[10]);
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for {@link BitStreamInputStream#markSupported()}.
+	 */
+	@Test
+	public final void testMarkReset() {
+		BitStreamInputStream in = new BitStream(new byte[] { 1, 2, 3 })
+				.asInputStream();
+		try {
+			assertEquals(1, in.read());
+			in.mark(0);
+			assertEquals(2, in.read());
+			in.reset();
+			assertEquals(2, in.read());
+			assertEquals(1, in.skip(10));
+			assertEquals(-1, in.read());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for the {@link java.io.DataInput} methods.
+	 */
+	@Test
+	public final void testDataInput() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeBoolean(true);
+			out.writeShort(-2);
+			out.writeChar('x');
+			out.writeInt(0x80000001);
+			out.writeLong(-5L);
+			out.writeFloat(2.5f);
+			out.writeDouble(-0.125);
+			out.writeUTF("bits \u00e4");
+			out.writeBytes("line\r\nlast");
+		} catch (IOException e) {
+			fail();
+		}
+
+		BitStreamInputStream in = new BitStream(bytes.toByteArray())
+				.asInputStream();
+		try {
+			assertTrue(in.readBoolean());
+			assertEquals(-2, in.readShort());
+			assertEquals('x', in.readChar());
+			assertEquals(0x80000001, in.readInt());
+			assertEquals(-5L, in.readLong());
+			assertEquals(2.5f, in.readFloat(), 0f);
+			assertEquals(-0.125, in.readDouble(), 0d);
+			assertEquals("bits \u00e4", in.readUTF());
+			assertEquals("line", in.readLine());
+			assertEquals("last", in.readLine());
+			assertNull(in.readLine());
+		} catch (IOException e) {
+			fail();
+		}
+
+		try {
+			in.readByte();
+			fail("Should throw exception");
+		} catch (EOFException e) {
+			// success
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for {@link BitStreamInputStream#readFully(byte[])}.
+	 */
+	@Test
+	public final void testReadFully() {
+		BitStream stream = new BitStream(new byte[] { 1, 2, 3 });
+		BitStreamInputStream in = stream.asInputStream();
+		byte[] buffer = new byte[2];
+		try {
+			in.readFully(buffer);
+			assertArrayEquals(new byte[] { 1, 2 }, buffer);
+			assertFalse(stream.remaining() == 0);
+			in.readFully(buffer);
+			fail("Should throw exception");
+		} catch (EOFException e) {
+			// success
+		} catch (IOException e) {
+			fail();
+		}
+	}
+}
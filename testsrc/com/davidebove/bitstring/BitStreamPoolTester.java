@@ -0,0 +1,93 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BitStreamPool}
+ * 
+ * @author Dbof
+ *
+ */
+public class BitStreamPoolTester {
+
+	/**
+	 * Test method for {@link BitStreamPool#acquire(byte[], int, int)}.
+	 */
+	@Test
+	public final void testAcquire() {
+		BitStreamPool pool = new BitStreamPool();
+		BitStream first = pool.acquire(new byte[] { 1, 2, 3 }, 1, 2);
+		first.bitOrder(BitOrder.LSB_FIRST).order(ByteOrder.LITTLE_ENDIAN);
+		pool.release(first);
+
+		BitStream second = pool.acquire(ByteBuffer.wrap(new byte[] { 5, 6 }));
+		assertSame(first, second);
+		assertEquals(BitOrder.MSB_FIRST, second.bitOrder());
+		assertEquals(ByteOrder.BIG_ENDIAN, second.order());
+		try {
+			assertEquals(0x0506, second.readShort());
+		} catch (IOException e) {
+			fail();
+		}
+
+		// a stream in use is never handed out twice
+		BitStream third = pool.acquire(new byte[] { 7 }, 0, 1);
+		assertNotSame(second, third);
+	}
+
+	/**
+	 * Test method for {@link BitStreamPool#release(BitStream)}.
+	 */
+	@Test
+	public final void testRelease() {
+		BitStreamPool pool = new BitStreamPool(1024);
+		BitStream large = pool.acquire(new byte[1024], 0, 1024);
+		pool.release(large);
+		assertNotSame(large, pool.acquire(new byte[1], 0, 1));
+
+		BitStream small = pool.acquire(new byte[16], 0, 16);
+		pool.release(small);
+		BitStream again = pool.acquire(new byte[2], 0, 2);
+		assertSame(small, again);
+		assertEquals(16, again.length());
+
+		try {
+			new BitStreamPool(-1);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+}
@@ -5,7 +5,13 @@ package com.davidebove.bitstring;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import org.junit.Test;
@@ -133,4 +139,460 @@ public class BitStreamTester {
 			fail();
 		}
 	}
+
+	@Test
+	public final void testPeekBits() {
+		BitStream stream = new BitStream("10110000" + "11111111");
+		try {
+			assertEquals(0b1011, stream.peekBits(4));
+			assertEquals(0b1011, stream.peekBits(4));
+			assertEquals(0, stream.peekBits(0));
+			assertEquals(0xB0FF, stream.peekBits(16));
+			assertTrue(stream.readBoolean());
+			assertEquals(0b011, stream.peekBits(3));
+			assertEquals(1, stream.position());
+		} catch (IOException e) {
+			fail();
+		}
+
+		try {
+			stream.peekBits(16);
+			fail("Should throw exception");
+		} catch (IOException e) {
+			// success
+		}
+	}
+
+	@Test
+	public final void testPosition() {
+		BitStream stream = new BitStream("00001000" + "00000001");
+		try {
+			stream.position(4);
+			assertTrue(stream.readBoolean());
+			assertEquals(5, stream.position());
+			assertEquals(11, stream.remaining());
+			stream.position(15);
+			assertTrue(stream.readBoolean());
+			assertEquals(0, stream.remaining());
+			stream.position(0);
+			assertEquals(8, stream.read());
+		} catch (IOException e) {
+			fail();
+		}
+
+		try {
+			stream.position(17);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+		try {
+			stream.position(-1);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	@Test
+	public final void testMarkReset() {
+		BitStream stream = new BitStream(new byte[] { 4, 1, 2 });
+		try {
+			stream.reset();
+			assertEquals(4, stream.read());
+			stream.mark();
+			assertEquals(1, stream.read());
+			assertEquals(2, stream.read());
+			stream.reset();
+			assertEquals(1, stream.read());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public final void testAlignToByte() {
+		BitStream stream = new BitStream(new byte[] { 4, 1 });
+		try {
+			assertTrue(stream.isByteAligned());
+			assertEquals(0, stream.alignToByte());
+			stream.readInteger(3);
+			assertFalse(stream.isByteAligned());
+			assertEquals(5, stream.alignToByte());
+			assertTrue(stream.isByteAligned());
+			assertEquals(1, stream.read());
+		} catch (IOException e) {
+			fail();
+		}
+
+		// a stream of 11 bits ends 3 bits after the first byte boundary
+		stream = new BitStream(BitString.of("10110011" + "101"));
+		try {
+			stream.readInteger(8);
+			stream.readInteger(1);
+			assertEquals(2, stream.alignToByte());
+			assertEquals(11, stream.position());
+			assertEquals(0, stream.remaining());
+			assertEquals(0, stream.alignToByte());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public final void testReadLittleEndian() {
+		BitStream stream = new BitStream(new byte[] { 0x04, 0x01, 0x01, 0x02,
+				0x03, 0x04, 1, 2, 3, 4, 5, 6, 7, 8 });
+		try {
+			assertEquals(0x0104, stream.readShortLE());
+			assertEquals(0x04030201, stream.readIntegerLE());
+			assertEquals(0x0807060504030201L, stream.readLongLE());
+		} catch (IOException e) {
+			fail();
+		}
+
+		stream = new BitStream(new byte[] { 0x04, 0x01, 0x01, 0x02, 0x03,
+				(byte) 0x84 });
+		stream.order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(ByteOrder.LITTLE_ENDIAN, stream.order());
+		try {
+			assertEquals(0x0104, stream.readShort());
+			assertEquals(0x84030201, stream.readInteger());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public final void testBitOrder() {
+		// 0x05 = 00000101, 0x81 = 10000001
+		BitStream stream = new BitStream(new byte[] { 0x05, (byte) 0x81, 0x34,
+				0x12 });
+		stream.bitOrder(BitOrder.LSB_FIRST);
+		assertEquals(BitOrder.LSB_FIRST, stream.bitOrder());
+		try {
+			assertTrue(stream.readBoolean());
+			assertFalse(stream.readBoolean());
+			assertEquals(0b01, stream.peekBits(2));
+			assertEquals(0b1000001, stream.readInteger(7));
+			assertEquals(0, stream.readInteger(6));
+			assertTrue(stream.readBoolean());
+			assertEquals(0x34, stream.read());
+
+			stream.position(16);
+			assertEquals(0x1234, stream.readShortLE());
+			stream.position(16);
+			assertEquals(0x3412, stream.readShort());
+			stream.position(16);
+			stream.order(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(0x1234, stream.readShort());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public final void testReadHighBit() {
+		BitStream stream = new BitStream(new byte[] { -1, -2, -1, -1, -1, -1,
+				-1, -1, -128, 0, 0, 0, -1, -1, -1, -1, -1, -1, -1, -3 });
+		try {
+			assertEquals(-2, stream.readShort());
+			stream.position(0);
+			assertEquals(-65537, stream.readInteger());
+			stream.position(0);
+			assertEquals(0xFFFEFFFFFFFFFFFFL, stream.readLong());
+			assertEquals(Integer.MIN_VALUE, stream.readInteger(32));
+			assertEquals(-3, stream.readLong());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public final void testReadUnsigned() {
+		BitStream stream = new BitStream(new byte[] { -1, -2, -1, -1, -1, -2,
+				-1, -1, -1, -1, -1, -1, -1, -1 });
+		try {
+			assertEquals(0xFFFE, stream.readUnsignedShort());
+			assertEquals(0xFFFFFFFEL, stream.readUnsignedInteger());
+			assertEquals("18446744073709551615",
+					Long.toUnsignedString(stream.readUnsignedLong()));
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public final void testReadFloatDouble() {
+		BitStream stream = new BitStream(new byte[] { 0x3F, (byte) 0xC0, 0, 0,
+				(byte) 0xC0, 0x09, 0x21, (byte) 0xFB, 0x54, 0x44, 0x2D, 0x18,
+				0, 0, (byte) 0xC0, 0x3F });
+		try {
+			assertEquals(1.5f, stream.readFloat(), 0f);
+			assertEquals(-Math.PI, stream.readDouble(), 0d);
+			stream.order(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(1.5f, stream.readFloat(), 0f);
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public final void testReadBytesArray() {
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, -1 };
+		BitStream stream = new BitStream(data);
+		byte[] buffer = new byte[10];
+		try {
+			stream.readBoolean();
+			stream.readBytes(buffer, 0, 10);
+			for (int i = 0; i < 10; i++)
+				assertEquals((byte) ((data[i] << 1) | ((data[i + 1] & 0xFF) >>> 7)),
+						buffer[i]);
+			assertEquals(7, stream.remaining());
+
+			stream.position(0);
+			stream.bitOrder(BitOrder.LSB_FIRST);
+			stream.readBytes(buffer, 0, 10);
+			for (int i = 0; i < 10; i++)
+				assertEquals(data[i], buffer[i]);
+		} catch (IOException e) {
+			fail();
+		}
+
+		try {
+			stream.readBytes(buffer, 0, 2);
+			fail("Should throw exception");
+		} catch (IOException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitStream#reset(byte[], int, int)}.
+	 */
+	@Test
+	public final void testResetBytes() {
+		BitStream stream = new BitStream(new byte[32]);
+		stream.order(ByteOrder.LITTLE_ENDIAN);
+		long[] storage = stream.words;
+		byte[] packet = new byte[] { 9, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 9 };
+		try {
+			stream.readInteger();
+			stream.mark();
+			stream.reset(packet, 1, 11);
+			assertEquals(88, stream.length());
+			assertEquals(0, stream.position());
+			assertEquals(0x04030201, stream.readInteger());
+			stream.reset();
+			assertEquals(1, stream.read());
+
+			// shorter input leaves no stale bits behind
+			stream.reset(packet, 0, 1);
+			assertEquals(new BitString(new byte[] { 9 }), stream);
+		} catch (IOException e) {
+			fail();
+		}
+		assertSame(storage, stream.words);
+
+		try {
+			stream.reset(packet, 10, 4);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitStream#reset(ByteBuffer)}.
+	 */
+	@Test
+	public final void testResetByteBuffer() {
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 };
+		BitStream stream = new BitStream(new byte[0]);
+		for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.wrap(data),
+				ByteBuffer.allocateDirect(data.length).put(data) }) {
+			buffer.position(2).limit(12);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			stream.reset(buffer);
+			assertEquals(2, buffer.position());
+			assertArrayEquals(Arrays.copyOfRange(data, 2, 12),
+					stream.toByteArray());
+		}
+	}
+
+	/**
+	 * Test method for {@link BitStream#wrap(ByteBuffer)}.
+	 */
+	@Test
+	public final void testWrap() {
+		byte[] data = new byte[77];
+		new java.util.Random(4).nextBytes(data);
+		ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 3);
+		direct.put(new byte[3]).put(data).position(3);
+		for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.wrap(data),
+				direct }) {
+			for (BitOrder order : BitOrder.values()) {
+				BitStream expected = new BitStream(data).bitOrder(order);
+				BitStream stream = BitStream.wrap(buffer).bitOrder(order);
+				assertEquals(data.length * 8, stream.length());
+				try {
+					int count = 1;
+					while (stream.remaining() > 0) {
+						int n = (int) Math.min(count, stream.remaining());
+						assertEquals(expected.peekBits(n), stream.peekBits(n));
+						stream.position(stream.position() + n);
+						expected.position(stream.position());
+						count = count % 64 + 7;
+					}
+					stream.position(0);
+					expected.position(0);
+					assertEquals(expected.readLong(), stream.readLong());
+				} catch (IOException e) {
+					fail();
+				}
+			}
+		}
+		assertEquals(3, direct.position());
+
+		BitStream stream = BitStream.wrap(direct);
+		assertEquals(new BitString(data).find("1011011"),
+				stream.find("1011011"));
+		assertEquals(new BitString(data).cardinality(), stream.cardinality());
+		assertArrayEquals(data, stream.toByteArray());
+
+		// single bits are shared with the buffer
+		boolean first = stream.bitSet(0);
+		stream.setBit(0, !first);
+		assertEquals(!first, (direct.get(3) & 0x80) != 0);
+		direct.put(4, (byte) 0xFF);
+		assertTrue(stream.bitSet(15));
+
+		// changing the length copies the bits to the heap
+		stream.append(new byte[] { 1 });
+		direct.put(4, (byte) 0);
+		assertTrue(stream.bitSet(15));
+		assertEquals((data.length + 1) * 8, stream.length());
+		assertEquals(new BitStream(stream.toByteArray()), stream);
+	}
+
+	/**
+	 * Test method for {@link BitString#allocateDirect(int)}.
+	 */
+	@Test
+	public final void testAllocateDirect() {
+		BitString bitmap = BitString.allocateDirect(1 << 20);
+		assertEquals(1 << 20, bitmap.length());
+		bitmap.setBit(5);
+		bitmap.setBit((1 << 20) - 1);
+		assertEquals(2, bitmap.cardinality());
+		assertEquals(5, bitmap.find("1"));
+		assertEquals(16, BitString.allocateDirect(9).length());
+
+		BitString copy = new BitString(ByteBuffer.wrap(new byte[] { 3 }));
+		assertEquals(new BitString("00000011"), copy);
+		assertEquals(copy, BitString.wrap(ByteBuffer.wrap(new byte[] { 3 })));
+	}
+
+	@Test
+	public final void testSerialization() throws Exception {
+		BitStream stream = new BitStream(new byte[] { 3, 5 });
+		stream.bitOrder(BitOrder.LSB_FIRST).order(ByteOrder.LITTLE_ENDIAN);
+		stream.readInteger(4);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(stream);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			BitStream copy = (BitStream) in.readObject();
+			assertEquals(stream, copy);
+			assertEquals(4, copy.position());
+			assertEquals(BitOrder.LSB_FIRST, copy.bitOrder());
+			assertEquals(ByteOrder.LITTLE_ENDIAN, copy.order());
+		}
+	}
+
+	@Test
+	public final void testDeserializeStringForm() throws Exception {
+		// new BitStream("101"), written by the string-based version
+		byte[] stream = BitString.fromHex("aced000573720022636f6d2e6461766964"
+				+ "65626f76652e626974737472696e672e42697453747265616d15437714"
+				+ "57a21ec9020001490003706f7378720022636f6d2e646176696465626f"
+				+ "76652e626974737472696e672e426974537472696e67849fbd2aad505d"
+				+ "610200014c0004626974737400124c6a6176612f6c616e672f53747269"
+				+ "6e673b7870740008303030303031303100000000").toByteArray();
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(stream))) {
+			BitStream data = (BitStream) in.readObject();
+			assertEquals(BitOrder.MSB_FIRST, data.bitOrder());
+			assertEquals(ByteOrder.BIG_ENDIAN, data.order());
+			assertEquals(5, data.readInteger(8));
+		}
+	}
+
+	/**
+	 * Reading a view, or passing it to another bit string, must not detach it
+	 * from its buffer.
+	 */
+	@Test
+	public final void testWrapStaysAttached() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(2);
+		BitString view = BitString.wrap(buffer);
+		BitString other = new BitString("00000000" + "00000000");
+		byte value = 0;
+		for (int step = 0; step < 12; step++) {
+			switch (step) {
+			case 0:
+				assertEquals(view, new BitString(view));
+				break;
+			case 1:
+				new BitString("1").append(view);
+				break;
+			case 2:
+				view.equals(other);
+				other.equals(view);
+				break;
+			case 3:
+				view.hammingDistance(other);
+				other.hammingDistance(view);
+				break;
+			case 4:
+				view.find(other, 0);
+				other.find(view, 0);
+				break;
+			case 5:
+				view.hashCode();
+				break;
+			case 6:
+				view.toString();
+				view.toHex();
+				view.toBase64();
+				break;
+			case 7:
+				view.jaccard(other);
+				other.commonBits(view);
+				break;
+			case 8:
+				other.xor(view);
+				break;
+			case 9:
+				view.fingerprint();
+				view.cardinality();
+				break;
+			case 10:
+				new ObjectOutputStream(new ByteArrayOutputStream())
+						.writeObject(view);
+				break;
+			default:
+				ParallelBits.toByteArray(view);
+			}
+			buffer.put(1, ++value);
+			assertEquals("step " + step, value, view.toByteArray()[1]);
+		}
+
+		// changing the bits in bulk moves them to the heap
+		view.shiftLeft(1);
+		buffer.put(1, (byte) 0);
+		assertEquals((byte) (value << 1), view.toByteArray()[1]);
+	}
 }
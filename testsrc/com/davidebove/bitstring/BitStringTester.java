@@ -28,8 +28,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -374,4 +383,441 @@ public class BitStringTester {
 		bs.append(cpy);
 		assertEquals(cpy, bs);
 	}
+
+	/**
+	 * Test method for {@link BitString#fingerprint(int, int)}.
+	 */
+	@Test
+	public final void testFingerprint() {
+		byte[] frame = new byte[] { 99, 33, -127, -128, 127, (byte) 250, 0, 1,
+				-1, 42 };
+		BitString b = new BitString(frame);
+		BitString shifted = new BitString("101");
+		shifted.append(frame);
+
+		// equal content at different offsets
+		assertEquals(b.fingerprint(), shifted.fingerprint(8, 88));
+		assertEquals(b.fingerprint(3, 70), shifted.fingerprint(11, 78));
+		assertEquals(b.fingerprint(), new BitString(b).fingerprint());
+
+		assertNotEquals(b.fingerprint(0, 79), b.fingerprint(0, 80));
+		assertNotEquals(b.fingerprint(0, 40), b.fingerprint(1, 41));
+		assertNotEquals(b.fingerprint(), shifted.fingerprint());
+		assertEquals(new BitString("0").fingerprint(0, 0), b.fingerprint(5, 5));
+
+		try {
+			b.fingerprint(0, 81);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitString#shiftLeft(int)} and
+	 * {@link BitString#shiftRight(int)}.
+	 */
+	@Test
+	public final void testShift() {
+		BitString b = new BitString("10110011" + "10001111");
+		b.shiftLeft(3);
+		assertEquals("10011100" + "01111000", b.toString());
+		b.shiftRight(5);
+		assertEquals("00000100" + "11100011", b.toString());
+		b.shiftRight(0);
+		assertEquals("00000100" + "11100011", b.toString());
+		b.shiftLeft(16);
+		assertEquals("00000000" + "00000000", b.toString());
+
+		// across word boundaries
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 };
+		String bits = new BitString(data).toString();
+		for (int n : new int[] { 1, 7, 63, 64, 65, 100, 104, 200 }) {
+			BitString left = new BitString(data);
+			left.shiftLeft(n);
+			String expected = n >= bits.length() ? "" : bits.substring(n);
+			while (expected.length() < bits.length())
+				expected += "0";
+			assertEquals(expected, left.toString());
+
+			BitString right = new BitString(data);
+			right.shiftRight(n);
+			expected = n >= bits.length() ? "" : bits.substring(0,
+					bits.length() - n);
+			while (expected.length() < bits.length())
+				expected = "0" + expected;
+			assertEquals(expected, right.toString());
+		}
+
+		try {
+			b.shiftLeft(-1);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitString#rotateLeft(int)} and
+	 * {@link BitString#rotateRight(int)}.
+	 */
+	@Test
+	public final void testRotate() {
+		BitString b = new BitString("10110011" + "10001111");
+		b.rotateLeft(3);
+		assertEquals("10011100" + "01111101", b.toString());
+		b.rotateRight(3);
+		assertEquals("10110011" + "10001111", b.toString());
+		b.rotateLeft(-4);
+		assertEquals("11111011" + "00111000", b.toString());
+		b.rotateRight(16 * 5 - 4);
+		assertEquals("10110011" + "10001111", b.toString());
+
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 };
+		String bits = new BitString(data).toString();
+		for (int n : new int[] { 1, 7, 63, 64, 65, 100, 103 }) {
+			BitString left = new BitString(data);
+			left.rotateLeft(n);
+			assertEquals(bits.substring(n) + bits.substring(0, n),
+					left.toString());
+			left.rotateRight(n);
+			assertEquals(bits, left.toString());
+		}
+	}
+
+	/**
+	 * Test method for {@link BitString#reverse()}.
+	 */
+	@Test
+	public final void testReverse() {
+		BitString b = new BitString("10110011" + "10001110");
+		b.reverse();
+		assertEquals("01110001" + "11001101", b.toString());
+
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 };
+		BitString r = new BitString(data);
+		r.reverse();
+		assertEquals(new StringBuilder(new BitString(data).toString())
+				.reverse().toString(), r.toString());
+		r.reverse();
+		assertEquals(new BitString(data), r);
+	}
+
+	/**
+	 * Test method for {@link BitString#hammingDistance(BitString)}.
+	 */
+	@Test
+	public final void testHammingDistance() {
+		BitString a = new BitString("10110011" + "10001111");
+		assertEquals(10, a.cardinality());
+		assertEquals(0, a.hammingDistance(new BitString(a)));
+		assertEquals(3, a.hammingDistance(new BitString("00110011"
+				+ "10001100")));
+
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 };
+		BitString b = new BitString(data);
+		BitString c = new BitString(b);
+		c.setBit(0);
+		c.setBit(100, true);
+		c.setBit(103, false);
+		assertEquals(2, b.hammingDistance(c));
+
+		try {
+			a.hammingDistance(b);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitString#jaccard(BitString)}.
+	 */
+	@Test
+	public final void testJaccard() {
+		BitString a = new BitString("11110000");
+		BitString b = new BitString("00111100");
+		assertEquals(2, a.commonBits(b));
+		assertEquals(2.0 / 6, a.jaccard(b), 1e-12);
+		assertEquals(1.0, a.jaccard(a), 1e-12);
+		assertEquals(1.0, new BitString("00000000").jaccard(
+				new BitString("0000000000000000")), 1e-12);
+
+		// missing bits of the shorter bit string count as 0
+		BitString c = new BitString("11110000" + "00000000" + "00000000"
+				+ "00000000" + "00000000" + "00000000" + "00000000"
+				+ "00000000" + "11111111");
+		assertEquals(4, a.commonBits(c));
+		assertEquals(4, c.commonBits(a));
+		assertEquals(4.0 / 12, a.jaccard(c), 1e-12);
+		assertEquals(4.0 / 12, c.jaccard(a), 1e-12);
+	}
+
+	/**
+	 * Test method for {@link BitString#fromHex(String)}.
+	 */
+	@Test
+	public final void testFromHex() {
+		assertEquals(new BitString(0xAABBCC, false),
+				BitString.fromHex("aaBBcc"));
+		assertEquals("00001010" + "10111100", BitString.fromHex("abc")
+				.toString());
+		assertEquals(0, BitString.fromHex("").length());
+
+		byte[] data = new byte[1000];
+		new Random(3).nextBytes(data);
+		BitString b = new BitString(data);
+		assertEquals(b, BitString.fromHex(b.toHex()));
+
+		try {
+			BitString.fromHex("12g4");
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitString#toHex()}.
+	 */
+	@Test
+	public final void testToHex() {
+		assertEquals("00aabbcc", new BitString(0xAABBCC, true).toHex());
+		assertEquals("", BitString.fromHex("").toHex());
+
+		// a last, incomplete digit is padded with zeros
+		BitString b = new BitString("10110011");
+		b.ensureCapacity(14);
+		b.appendBits(0x3E, 6);
+		assertEquals("b3f8", b.toHex());
+
+		byte[] data = new byte[5000];
+		new Random(5).nextBytes(data);
+		StringBuilder expected = new StringBuilder();
+		for (byte value : data)
+			expected.append(String.format("%02x", value));
+		assertEquals(expected.toString(), new BitString(data).toHex());
+
+		StringWriter out = new StringWriter();
+		try {
+			new BitString(data).toHex(out);
+		} catch (IOException e) {
+			fail("Should not throw exception");
+		}
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	/**
+	 * Test method for {@link BitString#toBase64()}.
+	 */
+	@Test
+	public final void testBase64() {
+		assertEquals("", BitString.fromHex("").toBase64());
+		assertEquals("qrvM", BitString.fromHex("aabbcc").toBase64());
+		assertEquals("qrs=", BitString.fromHex("aabb").toBase64());
+		assertEquals(BitString.fromHex("aabb"), BitString.fromBase64("qrs="));
+
+		Random random = new Random(9);
+		for (int size : new int[] { 1, 2, 3, 3071, 3072, 3073, 10000 }) {
+			byte[] data = new byte[size];
+			random.nextBytes(data);
+			BitString b = new BitString(data);
+			String expected = Base64.getEncoder().encodeToString(data);
+			assertEquals(expected, b.toBase64());
+
+			StringBuilder out = new StringBuilder();
+			try {
+				b.toBase64(out);
+			} catch (IOException e) {
+				fail("Should not throw exception");
+			}
+			assertEquals(expected, out.toString());
+			assertEquals(b, BitString.fromBase64(expected));
+		}
+
+		try {
+			BitString.fromBase64("q*s=");
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitString#and(BitString)}.
+	 */
+	@Test
+	public final void testLogicalOps() {
+		BitString a = new BitString("11001100");
+		a.and(new BitString("10101010"));
+		assertEquals("10001000", a.toString());
+		a.or(new BitString("00000011"));
+		assertEquals("10001011", a.toString());
+		a.xor(new BitString("11111111"));
+		assertEquals("01110100", a.toString());
+		a.andNot(new BitString("01010101"));
+		assertEquals("00100000", a.toString());
+		a.xor(a);
+		assertEquals(0, a.cardinality());
+
+		try {
+			a.and(new BitString("1011001110110011"));
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitString#find(BitString, int)}.
+	 */
+	@Test
+	public final void testFindFromIndex() {
+		BitString b = new BitString("10110011" + "10110011");
+		assertEquals(0, b.find(new BitString("10110011"), -3));
+		assertEquals(8, b.find(new BitString("10110011"), 1));
+		assertEquals(-1, b.find(new BitString("10110011"), 9));
+		assertEquals(3, b.find(new BitString("10011101"), 0));
+		assertEquals(16, b.find(new BitString(new byte[0]), 16));
+	}
+
+	@Test
+	public final void testLongestCommonPrefix() {
+		BitString a = new BitString("1011001110110011" + "1011001110110011"
+				+ "1011001110110011" + "1011001110110011" + "10110011");
+		BitString b = new BitString(a);
+		assertEquals(72, a.longestCommonPrefix(b));
+		b.setBit(66, false);
+		assertEquals(66, a.longestCommonPrefix(b));
+		assertEquals(0, a.longestCommonPrefix(new BitString("01011001")));
+		assertEquals(8, a.longestCommonPrefix(new BitString("10110011")));
+		assertEquals(6, a.longestCommonPrefix(new BitString("10110000")));
+	}
+
+	@Test
+	public final void testCompareTo() {
+		assertEquals(0, new BitString("1010").compareTo(new BitString("1010")));
+		assertEquals(-1, Integer.signum(new BitString("10100000")
+				.compareTo(new BitString("1010000000000000"))));
+		assertEquals(1, Integer.signum(new BitString("1100000000000000")
+				.compareTo(new BitString("10111111"))));
+
+		Random random = new Random(45);
+		BitString[] data = new BitString[200];
+		String[] strings = new String[data.length];
+		for (int i = 0; i < data.length; i++) {
+			StringBuilder sb = new StringBuilder();
+			int n = 8 * (1 + random.nextInt(20));
+			for (int j = 0; j < n; j++)
+				sb.append(random.nextBoolean() ? '1' : '0');
+			strings[i] = sb.toString();
+			data[i] = new BitString(strings[i]);
+		}
+		Arrays.sort(data);
+		Arrays.sort(strings);
+		for (int i = 0; i < data.length; i++)
+			assertEquals(strings[i], data[i].toString());
+	}
+
+	@Test
+	public final void testSerialization() throws Exception {
+		BitString data = new BitString("10110011");
+		data.append("101");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(data);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			BitString copy = (BitString) in.readObject();
+			assertEquals(data, copy);
+			assertEquals(data.length(), copy.length());
+			copy.append("1");
+			assertEquals("1011001100000101" + "00000001", copy.toString());
+		}
+	}
+
+	@Test
+	public final void testDeserializeStringForm() throws Exception {
+		// new BitString("1011001110"), written by the string-based version
+		byte[] stream = BitString.fromHex("aced000573720022636f6d2e6461766964"
+				+ "65626f76652e626974737472696e672e426974537472696e67849fbd2aad"
+				+ "505d610200014c0004626974737400124c6a6176612f6c616e672f537472"
+				+ "696e673b787074001030303030303031303131303031313130")
+				.toByteArray();
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(stream))) {
+			BitString data = (BitString) in.readObject();
+			assertEquals(new BitString("1011001110"), data);
+			assertEquals(16, data.length());
+		}
+	}
+
+	@Test
+	public final void testLogicalOpsOnViews() {
+		BitString view = BitString.wrap(ByteBuffer.wrap(new byte[] {
+				(byte) 0xCC, 0x0F }));
+		view.and(new BitString("10101010" + "11111111"));
+		assertEquals("10001000" + "00001111", view.toString());
+
+		BitString heap = new BitString("00000001" + "10000000");
+		heap.or(BitString.wrap(ByteBuffer.wrap(new byte[] { 0x10, 0x01 })));
+		assertEquals("00010001" + "10000001", heap.toString());
+
+		BitString target = BitString.wrap(ByteBuffer.wrap(new byte[] { 0x0F, 0 }));
+		ParallelBits.xor(target, BitString.wrap(ByteBuffer.wrap(new byte[] {
+				(byte) 0xFF, 1 })));
+		assertEquals("11110000" + "00000001", target.toString());
+	}
+
+	@Test
+	public final void testCompareViewsStayAttached() {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 0x0F, 0x00 });
+		BitString view = BitString.wrap(buffer);
+		BitString other = new BitString("00001111" + "00000001");
+		PrefixTrie<String> trie = new PrefixTrie<String>();
+		trie.put(new BitString("00001111"), "prefix");
+
+		assertEquals(-1, Integer.signum(view.compareTo(other)));
+		assertEquals(1, Integer.signum(other.compareTo(view)));
+		assertEquals(15, view.longestCommonPrefix(other));
+		BitString[] sorted = { other, view };
+		Arrays.sort(sorted);
+		assertEquals("prefix", trie.longestPrefixMatch(view));
+		other.and(view);
+		ParallelBits.or(other, view);
+
+		assertEquals(0, view.compareTo(other));
+		buffer.put(1, (byte) 0x80);
+		assertEquals(1, Integer.signum(view.compareTo(other)));
+		assertEquals(8, view.longestCommonPrefix(other));
+		buffer.put(0, (byte) 0);
+		assertEquals(4, view.longestCommonPrefix(other));
+	}
+
+	@Test
+	public final void testOfAndPrefix() {
+		BitString b = BitString.of("101");
+		assertEquals(3, b.length());
+		assertEquals("101", b.toString());
+		assertEquals(0, BitString.of("").length());
+		assertEquals(new BitString("00000101"), BitString.of("00000101"));
+
+		BitString data = new BitString("10110011" + "10001111");
+		assertEquals(BitString.of("1011001110"), data.prefix(10));
+		assertEquals(0, data.prefix(0).length());
+		assertEquals(data, data.prefix(16));
+		try {
+			BitString.of("102");
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			data.prefix(17);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
 }
@@ -0,0 +1,134 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BitWriter}
+ * 
+ * @author Dbof
+ *
+ */
+public class BitWriterTester {
+
+	/**
+	 * Test method for {@link BitWriter#writeBoolean(boolean)}.
+	 */
+	@Test
+	public final void testWriteBoolean() {
+		BitWriter writer = new BitWriter(1);
+		for (int i = 0; i < 12; i++)
+			writer.writeBoolean(i % 3 == 0);
+		assertEquals(12, writer.length());
+		assertEquals(new BitString("10010010" + "01000000"),
+				writer.toBitString());
+	}
+
+	/**
+	 * Test method for {@link BitWriter#write(long, int)}.
+	 */
+	@Test
+	public final void testWrite() {
+		BitWriter writer = new BitWriter(1);
+		writer.write(0b101, 3);
+		writer.write(0xABCD, 16);
+		writer.write(-1L, 64);
+		writer.write(0, 5);
+		assertEquals(88, writer.length());
+		assertArrayEquals(new byte[] { (byte) 0xB5, 0x79, (byte) 0xBF, -1,
+				-1, -1, -1, -1, -1, -1, (byte) 0xE0 }, writer.toByteArray());
+
+		try {
+			writer.write(0, 65);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BitWriter#clear()}.
+	 */
+	@Test
+	public final void testClear() {
+		BitWriter writer = new BitWriter();
+		writer.write(0xFF, 8);
+		writer.clear();
+		assertEquals(0, writer.length());
+		writer.write(0b1, 2);
+		assertArrayEquals(new byte[] { 0x40 }, writer.toByteArray());
+	}
+
+	/**
+	 * Test method for {@link BitWriter#bitOrder(BitOrder)}.
+	 */
+	@Test
+	public final void testBitOrder() {
+		BitWriter writer = new BitWriter(1).bitOrder(BitOrder.LSB_FIRST);
+		writer.writeBoolean(true);
+		writer.write(0b10, 2);
+		writer.write(0x1F, 5);
+		writer.write(0xABC, 12);
+		writer.writeShort((short) 0x1234);
+		assertArrayEquals(new byte[] { (byte) 0xFD, (byte) 0xBC, 0x2A, 0x41,
+				0x03 }, writer.toByteArray());
+
+		BitStream stream = new BitStream(writer.toBitString());
+		stream.bitOrder(BitOrder.LSB_FIRST);
+		try {
+			assertEquals(1, stream.readInteger(1));
+			assertEquals(0b10, stream.readInteger(2));
+			assertEquals(0x1F, stream.readInteger(5));
+			assertEquals(0xABC, stream.readInteger(12));
+			assertEquals(0x1234, stream.readShort());
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for {@link BitWriter#order(ByteOrder)}.
+	 */
+	@Test
+	public final void testByteOrder() {
+		BitWriter writer = new BitWriter().order(ByteOrder.LITTLE_ENDIAN);
+		writer.writeShort((short) 0x0102);
+		writer.writeInteger(0x01020304);
+		writer.writeLong(0x0102030405060708L);
+		assertArrayEquals(new byte[] { 2, 1, 4, 3, 2, 1, 8, 7, 6, 5, 4, 3, 2,
+				1 }, writer.toByteArray());
+
+		writer = new BitWriter();
+		writer.writeInteger(0x01020304);
+		assertArrayEquals(new byte[] { 1, 2, 3, 4 }, writer.toByteArray());
+	}
+}
@@ -0,0 +1,97 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BlockedBloomFilter}
+ * 
+ * @author Dbof
+ *
+ */
+public class BlockedBloomFilterTester {
+
+	/**
+	 * Test method for {@link BlockedBloomFilter#mightContain(long)}.
+	 */
+	@Test
+	public final void testMightContain() {
+		BlockedBloomFilter filter = BlockedBloomFilter.create(10000, 0.01);
+		assertEquals(0, filter.size() % 512);
+		for (long key = 0; key < 10000; key++)
+			filter.add(key);
+		for (long key = 0; key < 10000; key++)
+			assertTrue(filter.mightContain(key));
+
+		int falsePositives = 0;
+		for (long key = 10000; key < 110000; key++)
+			if (filter.mightContain(key))
+				falsePositives++;
+		assertTrue(falsePositives < 2500);
+	}
+
+	/**
+	 * Test method for {@link BlockedBloomFilter#insert(long)}.
+	 */
+	@Test
+	public final void testInsert() {
+		// all positions of a key are within one block
+		BlockedBloomFilter filter = new BlockedBloomFilter(512 * 64, 8);
+		filter.add(new BitString("10110011"));
+		BitString bits = filter.toBitString();
+		int first = bits.find("1");
+		assertEquals(8, bits.cardinality());
+		for (int i = 0; i < bits.length(); i++)
+			if (bits.bitSet(i))
+				assertEquals(first / 512, i / 512);
+	}
+
+	/**
+	 * Test method for {@link BlockedBloomFilter#fromByteArray(byte[], int)}.
+	 */
+	@Test
+	public final void testFromByteArray() {
+		BlockedBloomFilter filter = new BlockedBloomFilter(1000, 6);
+		assertEquals(1024, filter.size());
+		filter.addAll(5, 6, 7);
+		BlockedBloomFilter restored = BlockedBloomFilter.fromByteArray(
+				filter.toByteArray(), 6);
+		assertTrue(restored.mightContainAll(5, 6, 7));
+		restored.union(filter);
+		assertArrayEquals(filter.toByteArray(), restored.toByteArray());
+
+		try {
+			BlockedBloomFilter.fromByteArray(new byte[100], 6);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+}
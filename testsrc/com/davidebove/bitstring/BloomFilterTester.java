@@ -0,0 +1,134 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BloomFilter}
+ * 
+ * @author Dbof
+ *
+ */
+public class BloomFilterTester {
+
+	/**
+	 * Test method for {@link BloomFilter#mightContain(long)}.
+	 */
+	@Test
+	public final void testMightContain() {
+		BloomFilter filter = BloomFilter.create(10000, 0.01);
+		assertEquals(7, filter.hashCount());
+		for (long key = 0; key < 10000; key++)
+			filter.add(key);
+		for (long key = 0; key < 10000; key++)
+			assertTrue(filter.mightContain(key));
+
+		int falsePositives = 0;
+		for (long key = 10000; key < 110000; key++)
+			if (filter.mightContain(key))
+				falsePositives++;
+		assertTrue(falsePositives < 1500);
+		assertTrue(filter.expectedFpp() < 0.015);
+	}
+
+	/**
+	 * Test method for {@link BloomFilter#addAll(Iterable)}.
+	 */
+	@Test
+	public final void testAddAll() {
+		List<BitString> keys = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+			keys.add(new BitString(i * 31, true));
+		BloomFilter filter = new BloomFilter(2000, 5);
+		assertFalse(filter.mightContainAll(keys));
+		filter.addAll(keys);
+		assertTrue(filter.mightContainAll(keys));
+		assertTrue(filter.mightContain(new BitString(31 * 7, true)));
+
+		filter.addAll(1L, 2L, 3L);
+		assertTrue(filter.mightContainAll(1L, 2L, 3L));
+		assertTrue(filter.mightContainAll());
+	}
+
+	/**
+	 * Test method for {@link BloomFilter#union(BloomFilter)}.
+	 */
+	@Test
+	public final void testUnion() {
+		BloomFilter a = new BloomFilter(1024, 3);
+		BloomFilter b = new BloomFilter(1024, 3);
+		a.add(1);
+		b.add(2);
+		a.union(b);
+		assertTrue(a.mightContainAll(1, 2));
+
+		try {
+			a.union(new BloomFilter(1024, 4));
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			a.union(new BlockedBloomFilter(1024, 3));
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link BloomFilter#toByteArray()}.
+	 */
+	@Test
+	public final void testToByteArray() {
+		BloomFilter filter = new BloomFilter(1001, 4);
+		assertEquals(1008, filter.size());
+		filter.add(new BitString("10110011"));
+		byte[] data = filter.toByteArray();
+		assertEquals(126, data.length);
+		assertArrayEquals(filter.toBitString().toByteArray(), data);
+		assertEquals(4, filter.toBitString().cardinality());
+
+		BloomFilter restored = BloomFilter.fromByteArray(data, 4);
+		assertTrue(restored.mightContain(new BitString("10110011")));
+		assertArrayEquals(data, restored.toByteArray());
+
+		try {
+			new BloomFilter(0, 4);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+}
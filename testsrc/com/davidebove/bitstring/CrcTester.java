@@ -0,0 +1,148 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link Crc}
+ * 
+ * @author Dbof
+ *
+ */
+public class CrcTester {
+	private static final BitString CHECK = new BitString(
+			"123456789".getBytes(StandardCharsets.US_ASCII));
+
+	/**
+	 * Test method for {@link Crc#compute(BitString)} with the check values of
+	 * the common algorithms.
+	 */
+	@Test
+	public final void testCheckValues() {
+		assertEquals(0xF4, Crc.CRC8.compute(CHECK));
+		assertEquals(0xBB3D, Crc.CRC16_ARC.compute(CHECK));
+		assertEquals(0x29B1, Crc.CRC16_CCITT.compute(CHECK));
+		assertEquals(0xCBF43926L, Crc.CRC32.compute(CHECK));
+		assertEquals(0xE3069283L, Crc.CRC32C.compute(CHECK));
+		assertEquals(0x995DC9BBDF1939FAL, Crc.CRC64_XZ.compute(CHECK));
+
+		// CRC-5/USB and CRC-3/ROHC
+		assertEquals(0x19, new Crc(5, 0x05, 0x1F, true, true, 0x1F)
+				.compute(CHECK));
+		assertEquals(0x6, new Crc(3, 0x3, 0x7, true, true, 0).compute(CHECK));
+		// CRC-12/UMTS has refIn != refOut
+		assertEquals(0xDAF, new Crc(12, 0x80F, 0, false, true, 0)
+				.compute(CHECK));
+	}
+
+	/**
+	 * Test method for {@link Crc#compute(BitString, int, int)} on unaligned
+	 * ranges.
+	 */
+	@Test
+	public final void testUnalignedRange() {
+		byte[] data = new byte[300];
+		new Random(3).nextBytes(data);
+		BitString aligned = new BitString(data);
+		BitString unaligned = new BitString("101");
+		unaligned.append(data);
+
+		for (Crc crc : new Crc[] { Crc.CRC8, Crc.CRC16_ARC, Crc.CRC32,
+				Crc.CRC32C, Crc.CRC64_XZ }) {
+			assertEquals(crc.compute(aligned),
+					crc.compute(unaligned, 8, 8 + data.length * 8));
+			assertEquals(crc.compute(aligned, 0, 17),
+					crc.compute(unaligned, 8, 25));
+		}
+	}
+
+	/**
+	 * Test method for {@link Crc#compute(BitString, int, int)} against a bit
+	 * by bit implementation.
+	 */
+	@Test
+	public final void testReference() {
+		Random random = new Random(5);
+		byte[] data = new byte[100];
+		random.nextBytes(data);
+		BitString b = new BitString(data);
+
+		for (int width : new int[] { 1, 3, 5, 7, 8, 12, 16, 24, 31, 32, 33,
+				63, 64 }) {
+			long poly = random.nextLong() | 1;
+			long init = random.nextLong();
+			long xorOut = random.nextLong();
+			for (int ref = 0; ref < 4; ref++) {
+				boolean refIn = (ref & 1) != 0, refOut = (ref & 2) != 0;
+				Crc crc = new Crc(width, poly, init, refIn, refOut, xorOut);
+				for (int k = 0; k < 20; k++) {
+					int begin = random.nextInt(b.length());
+					int end = begin + random.nextInt(b.length() - begin + 1);
+					assertEquals("width " + width,
+							reference(b, begin, end, width, poly, init, refIn,
+									refOut, xorOut),
+							crc.compute(b, begin, end));
+				}
+			}
+		}
+
+		try {
+			Crc.CRC32.compute(b, 0, b.length() + 1);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Computes a CRC bit by bit.
+	 */
+	private static long reference(final BitString b, final int begin,
+			final int end, final int width, final long poly, final long init,
+			final boolean refIn, final boolean refOut, final long xorOut) {
+		long mask = -1L >>> (64 - width);
+		long crc = init & mask;
+		for (int group = begin; group < end; group += 8) {
+			int n = Math.min(8, end - group);
+			for (int j = 0; j < n; j++) {
+				int index = refIn ? group + n - 1 - j : group + j;
+				long bit = b.bitSet(index) ? 1 : 0;
+				long top = ((crc >>> (width - 1)) & 1) ^ bit;
+				crc = (crc << 1) & mask;
+				if (top != 0)
+					crc ^= poly & mask;
+			}
+		}
+		if (refOut)
+			crc = Long.reverse(crc) >>> (64 - width);
+		return (crc ^ xorOut) & mask;
+	}
+}
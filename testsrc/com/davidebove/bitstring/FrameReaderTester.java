@@ -0,0 +1,151 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link FrameReader}
+ * 
+ * @author Dbof
+ *
+ */
+public class FrameReaderTester {
+
+	/** The sync word used by the tests. */
+	private static final BitString SYNC = BitString.fromHex("1acffc1d");
+
+	/**
+	 * Test method for
+	 * {@link FrameReader#fixed(BitStream, BitString, int)}.
+	 */
+	@Test
+	public final void testFixed() {
+		BitWriter writer = new BitWriter();
+		writer.write(0x5, 3); // garbage before the first frame
+		writer.write(SYNC);
+		writer.write(0xABC, 12);
+		writer.write(SYNC);
+		writer.write(0x123, 12);
+		writer.write(0x7F, 7); // garbage between frames
+		writer.write(SYNC);
+		writer.write(0x4, 4); // incomplete frame
+
+		BitStream source = new BitStream(writer.toByteArray());
+		FrameReader reader = FrameReader.fixed(source, SYNC, 12);
+		try {
+			assertEquals(0xABC, reader.nextFrame().readInteger(12));
+			assertEquals(0x123, reader.nextFrame().readInteger(12));
+			assertNull(reader.nextFrame());
+		} catch (IOException e) {
+			fail();
+		}
+		assertEquals(10, reader.skipped());
+
+		try {
+			FrameReader.fixed(source, SYNC, -1);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link FrameReader#lengthPrefixed(java.io.InputStream, BitString, int)}.
+	 */
+	@Test
+	public final void testLengthPrefixed() {
+		Random random = new Random(41);
+		BitWriter writer = new BitWriter();
+		List<BitString> expected = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			// garbage of random length, so frames are not byte aligned
+			writer.write(random.nextLong() & 0x0FFFFFFFFFFFFFFFL,
+					random.nextInt(40));
+			byte[] payload = new byte[random.nextInt(60)];
+			random.nextBytes(payload);
+			writer.write(SYNC);
+			writer.write(payload.length, 12);
+			writer.write(new BitString(payload));
+			expected.add(new BitString(payload));
+		}
+
+		List<BitStream> frames = new ArrayList<>();
+		FrameReader.lengthPrefixed(new ByteArrayInputStream(
+				writer.toByteArray()), SYNC, 12).forEach(frames::add);
+		assertEquals(expected.size(), frames.size());
+		for (int i = 0; i < frames.size(); i++)
+			assertEquals(expected.get(i).toString(), frames.get(i).toString());
+
+		assertEquals(expected.size(), FrameReader.lengthPrefixed(
+				new BitStream(writer.toByteArray()), SYNC, 12).stream()
+				.count());
+	}
+
+	/**
+	 * Test method for {@link FrameReader#reject()}.
+	 */
+	@Test
+	public final void testReject() {
+		BitWriter writer = new BitWriter();
+		writer.write(SYNC);
+		writer.write(200, 8); // corrupt length swallows the next frame
+		writer.write(SYNC);
+		writer.write(1, 8);
+		writer.write(0x42, 8);
+		writer.write(new BitString(new byte[200]));
+
+		FrameReader reader = FrameReader.lengthPrefixed(
+				new ByteArrayInputStream(writer.toByteArray()), SYNC, 8);
+		try {
+			assertEquals(1600, reader.nextFrame().length());
+			reader.reject();
+			BitStream frame = reader.nextFrame();
+			assertEquals(8, frame.length());
+			assertEquals(0x42, frame.read());
+			assertEquals(39, reader.skipped());
+		} catch (IOException e) {
+			fail();
+		}
+
+		try {
+			reader.reject();
+			reader.reject();
+			fail("Should throw exception");
+		} catch (IllegalStateException e) {
+			// success
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link HammingIndex}
+ * 
+ * @author Dbof
+ *
+ */
+public class HammingIndexTester {
+
+	/**
+	 * Test method for {@link HammingIndex#query(BitString, int)}.
+	 */
+	@Test
+	public final void testQuery() {
+		Random random = new Random(11);
+		for (int bits : new int[] { 64, 72, 256 }) {
+			HammingIndex index = new HammingIndex(bits);
+			List<BitString> all = new ArrayList<>();
+			BitString base = randomBits(random, bits);
+			for (int i = 0; i < 2000; i++) {
+				// half of the entries are close to a common base
+				BitString b = (i % 2 == 0) ? randomBits(random, bits)
+						: flip(random, base, random.nextInt(12));
+				all.add(b);
+				assertEquals(i, index.add(b));
+			}
+			assertEquals(2000, index.size());
+
+			for (int d : new int[] { 0, 3, 8, 11, 40 }) {
+				BitString query = flip(random, base, 2);
+				List<Integer> expected = new ArrayList<>();
+				for (int id = 0; id < all.size(); id++)
+					if (query.hammingDistance(all.get(id)) <= d)
+						expected.add(id);
+				assertEquals(expected, index.query(query, d));
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link HammingIndex#query(BitString, int)} with chunks
+	 * of 24, 32 and 64 bits, whose values may have the top bit set.
+	 */
+	@Test
+	public final void testQueryChunkSizes() {
+		Random random = new Random(36);
+		int[][] configs = { { 48, 2 }, { 64, 2 }, { 96, 3 }, { 128, 2 } };
+		for (int[] config : configs) {
+			HammingIndex index = new HammingIndex(config[0], config[1]);
+			List<BitString> all = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				BitString b = randomBits(random, config[0]);
+				all.add(b);
+				index.add(b);
+			}
+			for (int id = 0; id < all.size(); id++)
+				assertEquals(Arrays.asList(id), index.query(all.get(id), 0));
+
+			BitString query = flip(random, all.get(7), 3);
+			List<Integer> expected = new ArrayList<>();
+			for (int id = 0; id < all.size(); id++)
+				if (query.hammingDistance(all.get(id)) <= 3)
+					expected.add(id);
+			assertEquals(expected, index.query(query, 3));
+		}
+	}
+
+	/**
+	 * Test method for {@link HammingIndex#add(BitString)}.
+	 */
+	@Test
+	public final void testAdd() {
+		HammingIndex index = new HammingIndex(16, 2);
+		assertEquals(0, index.query(new BitString("0000000000000000"), 3)
+				.size());
+
+		index.add(new BitString("1111000011110000"));
+		assertEquals(1, index.query(new BitString("1111000011110001"), 1)
+				.size());
+		// entries added after a query are indexed as well
+		index.add(new BitString("1111000011110011"));
+		assertEquals(2, index.query(new BitString("1111000011110001"), 1)
+				.size());
+		assertEquals(new BitString("1111000011110011"), index.get(1));
+
+		try {
+			index.add(new BitString("11110000"));
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			new HammingIndex(256, 2);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	private static BitString randomBits(final Random random, final int bits) {
+		byte[] data = new byte[bits / 8];
+		random.nextBytes(data);
+		return new BitString(data);
+	}
+
+	private static BitString flip(final Random random, final BitString b,
+			final int count) {
+		BitString result = new BitString(b);
+		for (int i = 0; i < count; i++) {
+			int index = random.nextInt(b.length());
+			result.setBit(index, !result.bitSet(index));
+		}
+		return result;
+	}
+
+	/**
+	 * Test method for {@link HammingIndex#query(BitString, int)} with adds
+	 * and queries interleaved, so that new entries are merged into tables of
+	 * 16-, 32- and 64-bit chunk values.
+	 */
+	@Test
+	public final void testInterleavedAddQuery() {
+		Random random = new Random(360);
+		int[][] configs = { { 48, 4 }, { 48, 2 }, { 128, 2 } };
+		for (int[] config : configs) {
+			HammingIndex index = new HammingIndex(config[0], config[1]);
+			List<BitString> all = new ArrayList<>();
+			BitString base = randomBits(random, config[0]);
+			for (int round = 0; round < 60; round++) {
+				// add a batch of 0 to 4 entries, then query
+				for (int i = random.nextInt(5); i > 0; i--) {
+					BitString b = (random.nextBoolean())
+							? randomBits(random, config[0])
+							: flip(random, base, random.nextInt(6));
+					all.add(b);
+					index.add(b);
+				}
+				BitString query = flip(random, base, 2);
+				List<Integer> expected = new ArrayList<>();
+				for (int id = 0; id < all.size(); id++)
+					if (query.hammingDistance(all.get(id)) <= 5)
+						expected.add(id);
+				assertEquals(expected, index.query(query, 5));
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link Metrics} and {@link CountingMetrics}
+ * 
+ * @author Dbof
+ *
+ */
+public class MetricsTester {
+
+	/**
+	 * Test method for {@link Metrics#setListener(MetricsListener)}.
+	 */
+	@Test
+	public final void testSetListener() {
+		CountingMetrics metrics = new CountingMetrics();
+		Metrics.setListener(metrics);
+		try {
+			assertSame(metrics, Metrics.getListener());
+			Metrics.bitsRead(5);
+			Metrics.bitsRead(3);
+			Metrics.bitsWritten(7);
+			Metrics.searched(100);
+			Metrics.bufferGrown(64);
+			Metrics.converted(16);
+			assertEquals(8, metrics.getBitsRead());
+			assertEquals(7, metrics.getBitsWritten());
+			assertEquals(1, metrics.getSearches());
+			assertEquals(100, metrics.getBitsScanned());
+			assertEquals(1, metrics.getBufferGrowths());
+			assertEquals(1, metrics.getConversions());
+			assertEquals(16, metrics.getBitsConverted());
+
+			metrics.reset();
+			assertEquals(0, metrics.getBitsRead());
+		} finally {
+			Metrics.setListener(null);
+		}
+		assertNotNull(Metrics.getListener());
+	}
+
+	/**
+	 * Test of the hooks, only run if the metrics are enabled.
+	 */
+	@Test
+	public final void testHooks() {
+		assumeTrue(Metrics.ENABLED);
+		CountingMetrics metrics = new CountingMetrics();
+		Metrics.setListener(metrics);
+		try {
+			BitStream stream = new BitStream(new byte[] { 1, 2, 3, 4 });
+			stream.readBoolean();
+			stream.readInteger(7);
+			stream.readShort();
+			assertEquals(24, metrics.getBitsRead());
+
+			stream.find("00000011");
+			assertEquals(1, metrics.getSearches());
+			assertEquals(17, metrics.getBitsScanned());
+
+			BitWriter writer = new BitWriter(1);
+			writer.write(0, 12);
+			assertEquals(12, metrics.getBitsWritten());
+			assertEquals(1, metrics.getBufferGrowths());
+
+			stream.toByteArray();
+			assertEquals(32, metrics.getBitsConverted());
+		} catch (IOException e) {
+			fail();
+		} finally {
+			Metrics.setListener(null);
+		}
+	}
+}
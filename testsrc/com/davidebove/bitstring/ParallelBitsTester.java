@@ -0,0 +1,115 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link ParallelBits}
+ * 
+ * @author Dbof
+ *
+ */
+public class ParallelBitsTester {
+
+	/** Sizes below, at and above the threshold, in bytes. */
+	private static final int[] SIZES = { 0, 13, ParallelBits.THRESHOLD / 8,
+			ParallelBits.THRESHOLD + 5, 3 * ParallelBits.THRESHOLD / 8 + 3 };
+
+	/**
+	 * Test method for {@link ParallelBits#fromByteArray(byte[])}.
+	 */
+	@Test
+	public final void testFromByteArray() {
+		Random random = new Random(31);
+		for (int size : SIZES) {
+			byte[] data = new byte[size];
+			random.nextBytes(data);
+			BitString b = ParallelBits.fromByteArray(data);
+			assertEquals(new BitString(data), b);
+			assertArrayEquals(data, ParallelBits.toByteArray(b));
+			assertEquals(b.cardinality(), ParallelBits.cardinality(b));
+		}
+	}
+
+	/**
+	 * Test method for {@link ParallelBits#and(BitString, BitString)}.
+	 */
+	@Test
+	public final void testLogicalOps() {
+		Random random = new Random(32);
+		for (int size : SIZES) {
+			byte[] x = new byte[size];
+			byte[] y = new byte[size];
+			random.nextBytes(x);
+			random.nextBytes(y);
+			BitString other = new BitString(y);
+
+			BitString expected = new BitString(x);
+			BitString actual = new BitString(x);
+			expected.and(other);
+			ParallelBits.and(actual, other);
+			assertEquals(expected, actual);
+			expected.or(other);
+			ParallelBits.or(actual, other);
+			assertEquals(expected, actual);
+			expected.xor(new BitString(x));
+			ParallelBits.xor(actual, new BitString(x));
+			assertEquals(expected, actual);
+			expected.andNot(other);
+			ParallelBits.andNot(actual, other);
+			assertEquals(expected, actual);
+		}
+
+		try {
+			ParallelBits.or(new BitString("10110011"), new BitString(
+					"1011001110110011"));
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link ParallelBits#cardinality(BitString)}.
+	 */
+	@Test
+	public final void testCardinality() {
+		BitString b = ParallelBits.fromByteArray(
+				new byte[ParallelBits.THRESHOLD]);
+		for (int i = 0; i < b.length(); i += 1000)
+			b.setBit(i);
+		// a dedicated pool is used when called from within it
+		int count = new ForkJoinPool(3).submit(
+				() -> ParallelBits.cardinality(b)).join();
+		assertEquals((b.length() + 999) / 1000, count);
+	}
+}
@@ -0,0 +1,198 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link PrefixCode}, {@link PrefixDecoder} and
+ * {@link PrefixEncoder}
+ * 
+ * @author Dbof
+ *
+ */
+public class PrefixCodeTester {
+
+	/**
+	 * Test method for {@link PrefixCode#fromLengths(int...)}.
+	 */
+	@Test
+	public final void testFromLengths() {
+		// example from RFC 1951, section 3.2.2
+		PrefixCode code = PrefixCode.fromLengths(3, 3, 3, 3, 3, 2, 4, 4);
+		int[] expected = new int[] { 0b010, 0b011, 0b100, 0b101, 0b110, 0b00,
+				0b1110, 0b1111 };
+		for (int symbol = 0; symbol < expected.length; symbol++)
+			assertEquals(expected[symbol], code.code(symbol));
+		assertEquals(4, code.maxLength());
+		assertEquals(8, code.symbolCount());
+
+		try {
+			PrefixCode.fromLengths(1, 1, 1);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			PrefixCode.fromLengths(1, PrefixCode.MAX_LENGTH + 1);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link PrefixDecoder#decode(BitStream)}.
+	 */
+	@Test
+	public final void testDecode() {
+		PrefixCode code = PrefixCode.fromLengths(3, 3, 3, 3, 3, 2, 4, 4);
+		// symbols 5, 0, 7, 6, 2 followed by padding
+		BitStream stream = new BitStream("00" + "010" + "1111" + "1110"
+				+ "100" + "00000000");
+		try {
+			PrefixDecoder decoder = code.decoder();
+			assertEquals(5, decoder.decode(stream));
+			assertEquals(0, decoder.decode(stream));
+			assertEquals(7, decoder.decode(stream));
+			assertEquals(6, decoder.decode(stream));
+			assertEquals(2, decoder.decode(stream));
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Test method for {@link PrefixDecoder#decode(BitStream)} with codes
+	 * longer than the root table.
+	 */
+	@Test
+	public final void testDecodeLongCodes() {
+		int[] lengths = new int[16];
+		for (int i = 0; i < lengths.length - 1; i++)
+			lengths[i] = i + 1;
+		lengths[lengths.length - 1] = lengths.length - 1;
+		PrefixCode code = PrefixCode.fromLengths(lengths);
+
+		BitWriter writer = new BitWriter();
+		PrefixEncoder encoder = code.encoder();
+		int[] symbols = new int[] { 15, 0, 14, 9, 8, 10, 1, 12 };
+		encoder.encode(symbols, 0, symbols.length, writer);
+
+		BitStream stream = new BitStream(writer.toBitString());
+		int[] decoded = new int[symbols.length];
+		try {
+			code.decoder().decode(stream, decoded, 0, decoded.length);
+		} catch (IOException e) {
+			fail();
+		}
+		assertArrayEquals(symbols, decoded);
+	}
+
+	/**
+	 * Test method for {@link PrefixDecoder#decode(BitStream)} on invalid
+	 * input.
+	 */
+	@Test
+	public final void testDecodeInvalid() {
+		// incomplete code: only "0" is assigned
+		PrefixDecoder decoder = PrefixCode.fromLengths(1).decoder();
+		BitStream stream = new BitStream("01000000");
+		try {
+			assertEquals(0, decoder.decode(stream));
+			decoder.decode(stream);
+			fail("Should throw exception");
+		} catch (IOException e) {
+			// success
+		}
+
+		// stream ends within a code
+		decoder = PrefixCode.fromLengths(1, 9, 9).decoder();
+		stream = new BitStream("11111111");
+		try {
+			decoder.decode(stream);
+			fail("Should throw exception");
+		} catch (IOException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link PrefixEncoder#encode(int, BitWriter)}.
+	 */
+	@Test
+	public final void testEncode() {
+		PrefixEncoder encoder = PrefixCode.fromLengths(3, 3, 3, 3, 3, 2, 4, 4,
+				0).encoder();
+		BitWriter writer = new BitWriter();
+		encoder.encode(5, writer);
+		encoder.encode(0, writer);
+		encoder.encode(7, writer);
+		assertEquals(9, writer.length());
+		assertEquals(new BitString("00010111" + "10000000"),
+				writer.toBitString());
+
+		try {
+			encoder.encode(8, writer);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link PrefixEncoder#encode(int, BitWriter)} and
+	 * {@link PrefixDecoder#decode(BitStream)} in both bit orders.
+	 */
+	@Test
+	public final void testRoundTripBitOrders() {
+		PrefixCode code = PrefixCode.fromLengths(1, 2, 3, 3);
+		int[] symbols = new int[] { 0, 1, 2, 3, 2, 0, 1 };
+		for (BitOrder order : BitOrder.values()) {
+			BitWriter writer = new BitWriter().bitOrder(order);
+			code.encoder().encode(symbols, 0, symbols.length, writer);
+
+			BitStream stream = new BitStream(writer.toByteArray())
+					.bitOrder(order);
+			int[] decoded = new int[symbols.length];
+			try {
+				code.decoder().decode(stream, decoded, 0, decoded.length);
+			} catch (IOException e) {
+				fail();
+			}
+			assertArrayEquals(symbols, decoded);
+		}
+
+		// DEFLATE packing: code 110 of symbol 2 fills bits 0 to 2 of the byte
+		BitWriter writer = new BitWriter().bitOrder(BitOrder.LSB_FIRST);
+		code.encoder().encode(2, writer);
+		assertArrayEquals(new byte[] { 3 }, writer.toByteArray());
+	}
+}
@@ -0,0 +1,144 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link PrefixTrie}
+ * 
+ * @author Dbof
+ */
+public class PrefixTrieTester {
+
+	@Test
+	public final void testPutGet() {
+		PrefixTrie<String> trie = new PrefixTrie<String>();
+		assertNull(trie.put(BitString.of("1010"), "a"));
+		assertNull(trie.put(BitString.of("10"), "b"));
+		assertNull(trie.put(BitString.of("1011"), "c"));
+		assertNull(trie.put(BitString.of(""), "root"));
+		assertEquals("a", trie.put(BitString.of("1010"), "A"));
+		assertEquals(4, trie.size());
+
+		assertEquals("A", trie.get(BitString.of("1010")));
+		assertEquals("b", trie.get(BitString.of("10")));
+		assertEquals("root", trie.get(BitString.of("")));
+		assertNull(trie.get(BitString.of("101")));
+		assertNull(trie.get(BitString.of("10101")));
+
+		assertEquals("b", trie.remove(BitString.of("10")));
+		assertNull(trie.remove(BitString.of("10")));
+		assertEquals(3, trie.size());
+		assertNull(trie.get(BitString.of("10")));
+	}
+
+	@Test
+	public final void testLongestPrefixMatch() {
+		PrefixTrie<String> trie = new PrefixTrie<String>();
+		trie.put(BitString.of("1100"), "a");
+		trie.put(BitString.of("110010"), "b");
+		assertNull(trie.longestPrefixMatch(BitString.of("0")));
+		assertNull(trie.longestPrefixMatch(BitString.of("110")));
+		assertEquals("a", trie.longestPrefixMatch(BitString.of("1100")));
+		assertEquals("a", trie.longestPrefixMatch(BitString.of("11001100")));
+		assertEquals("b", trie.longestPrefixMatch(BitString.of("11001011")));
+		trie.put(BitString.of(""), "default");
+		assertEquals("default", trie.longestPrefixMatch(BitString.of("0")));
+	}
+
+	@Test
+	public final void testForEachIsSorted() {
+		PrefixTrie<Integer> trie = new PrefixTrie<Integer>();
+		String[] prefixes = { "1", "0", "", "0111", "01", "0110", "11" };
+		for (int i = 0; i < prefixes.length; i++)
+			trie.put(BitString.of(prefixes[i]), i);
+		final List<String> visited = new ArrayList<String>();
+		trie.forEach((prefix, value) -> {
+			visited.add(prefix.toString());
+			assertEquals(prefixes[value], visited.get(visited.size() - 1));
+		});
+		List<String> expected = new ArrayList<String>();
+		for (String prefix : prefixes)
+			expected.add(prefix);
+		expected.sort(null);
+		assertEquals(expected, visited);
+	}
+
+	@Test
+	public final void testRandomAgainstBruteForce() {
+		Random random = new Random(45);
+		PrefixTrie<Integer> trie = new PrefixTrie<Integer>();
+		Map<String, Integer> routes = new HashMap<String, Integer>();
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder sb = new StringBuilder();
+			int n = random.nextInt(100);
+			for (int j = 0; j < n; j++)
+				sb.append(random.nextInt(4) == 0 ? '1' : '0');
+			routes.put(sb.toString(), i);
+			trie.put(BitString.of(sb.toString()), i);
+		}
+		assertEquals(routes.size(), trie.size());
+
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder sb = new StringBuilder();
+			int n = random.nextInt(130);
+			for (int j = 0; j < n; j++)
+				sb.append(random.nextInt(4) == 0 ? '1' : '0');
+			String key = sb.toString();
+			Integer expected = null;
+			for (int end = key.length(); end >= 0 && expected == null; end--)
+				expected = routes.get(key.substring(0, end));
+			assertEquals(expected, trie.longestPrefixMatch(BitString.of(key)));
+			assertEquals(routes.get(key), trie.get(BitString.of(key)));
+		}
+	}
+
+	@Test
+	public final void testAddressPrefixes() {
+		// 172.16.0.0/12 and 172.16.5.0/24 as prefixes of 32-bit addresses
+		BitString route = new BitString(new byte[] { (byte) 172, 16, 0, 0 });
+		BitString subnet = new BitString(new byte[] { (byte) 172, 16, 5, 0 });
+		PrefixTrie<String> trie = new PrefixTrie<String>();
+		trie.put(route.prefix(12), "/12");
+		trie.put(subnet.prefix(24), "/24");
+		assertEquals(12, route.prefix(12).length());
+
+		assertEquals("/24", trie.longestPrefixMatch(new BitString(
+				new byte[] { (byte) 172, 16, 5, 7 })));
+		assertEquals("/12", trie.longestPrefixMatch(new BitString(
+				new byte[] { (byte) 172, 31, 0, 1 })));
+		assertNull(trie.longestPrefixMatch(new BitString(
+				new byte[] { (byte) 172, 32, 0, 1 })));
+	}
+}
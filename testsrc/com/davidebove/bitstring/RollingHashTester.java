@@ -0,0 +1,158 @@
+package com.davidebove.bitstring;
+
+/*
+ * This file is part of com.davidebove.bitstring.
+ * 
+ * The MIT License (MIT). 
+ * Permission is hereby granted, free of charge, to any
+ * person obtaining a copy of this software and associated documentation files
+ * (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following
+ * conditions: The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software. THE SOFTWARE
+ * IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * Copyright (c) 2015.
+ * 
+ * @author Dbof <dbof@ymail.com>
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link RollingHash}
+ * 
+ * @author Dbof
+ *
+ */
+public class RollingHashTester {
+
+	/**
+	 * Test method for {@link RollingHash#roll()}.
+	 */
+	@Test
+	public final void testRoll() {
+		byte[] data = new byte[64];
+		new Random(7).nextBytes(data);
+		BitString b = new BitString(data);
+
+		RollingHash rolling = new RollingHash(b, 100);
+		RollingHash fresh = new RollingHash(b, 100);
+		int steps = 0;
+		do {
+			fresh.seek(rolling.position());
+			assertEquals(fresh.hash(), rolling.hash());
+			steps++;
+		} while (rolling.roll());
+		assertEquals(b.length() - 100 + 1, steps);
+		assertEquals(b.length() - 100, rolling.position());
+		assertFalse(rolling.roll());
+	}
+
+	/**
+	 * Test method for {@link RollingHash#hash()}, matching a pattern.
+	 */
+	@Test
+	public final void testFindPattern() {
+		BitString b = new BitString("0110101110001011" + "1100011010011101");
+		String pattern = "10001011" + "11000110";
+		long target = new RollingHash(new BitString(pattern), 16).hash();
+
+		RollingHash rolling = new RollingHash(b, pattern.length());
+		int found = -1;
+		do {
+			if (rolling.hash() == target) {
+				found = rolling.position();
+				break;
+			}
+		} while (rolling.roll());
+		assertEquals(8, found);
+		assertEquals(b.find(pattern), found);
+	}
+
+	/**
+	 * Test method for {@link RollingHash#seek(int)}.
+	 */
+	@Test
+	public final void testSeek() {
+		BitString b = new BitString("11110000" + "00001111");
+		RollingHash rolling = new RollingHash(b, 4);
+		long ones = rolling.hash();
+		rolling.seek(4);
+		long zeros = rolling.hash();
+		assertNotEquals(ones, zeros);
+		rolling.seek(12);
+		assertEquals(ones, rolling.hash());
+		rolling.seek(8);
+		assertEquals(zeros, rolling.hash());
+		assertTrue(rolling.roll());
+
+		try {
+			rolling.seek(13);
+			fail("Should throw exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+		try {
+			new RollingHash(b, 17);
+			fail("Should throw exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Test method for {@link RollingHash#hash()}, used for content-defined
+	 * chunking with odd and even window sizes.
+	 */
+	@Test
+	public final void testCutRate() {
+		byte[] data = new byte[1 << 18];
+		new Random(33).nextBytes(data);
+		BitString b = new BitString(data);
+		for (int window : new int[] { 48, 49 }) {
+			RollingHash rolling = new RollingHash(b, window);
+			int cuts = 0;
+			do {
+				if ((rolling.hash() & 0xFFF) == 0)
+					cuts++;
+			} while (rolling.roll());
+			// about one cut per 4096 positions, 512 in total
+			assertTrue("window " + window + ": " + cuts, cuts > 384
+					&& cuts < 640);
+		}
+	}
+
+	/**
+	 * Test method for {@link RollingHash#hash()} on a Thue-Morse window and
+	 * its complement, which collide under polynomial hashing modulo 2^64.
+	 */
+	@Test
+	public final void testThueMorse() {
+		StringBuilder morse = new StringBuilder();
+		StringBuilder complement = new StringBuilder();
+		for (int i = 0; i < 2048; i++) {
+			boolean bit = (Integer.bitCount(i) & 1) != 0;
+			morse.append(bit ? '1' : '0');
+			complement.append(bit ? '0' : '1');
+		}
+		assertNotEquals(
+				new RollingHash(BitString.of(morse.toString()), 2048).hash(),
+				new RollingHash(BitString.of(complement.toString()), 2048)
+						.hash());
+	}
+}